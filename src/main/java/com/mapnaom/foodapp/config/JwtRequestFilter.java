@@ -1,6 +1,9 @@
 package com.mapnaom.foodapp.config;
 
+import com.mapnaom.foodapp.entities.User;
 import com.mapnaom.foodapp.service.JwtService;
+import com.mapnaom.foodapp.service.TokenRevocationService;
+import com.mapnaom.foodapp.service.VerifiedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,53 +13,52 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
 
 @Component
 @RequiredArgsConstructor
 public class JwtRequestFilter extends OncePerRequestFilter {
     private static final Logger log = LoggerFactory.getLogger(JwtRequestFilter.class);
 
+    // Built once; a stale cookie on the login page must not cost a token verification.
+    private static final RequestMatcher PUBLIC_PATHS = new OrRequestMatcher(Arrays.stream(WebSecurityConfig.PUBLIC_PATHS)
+            .map(pattern -> (RequestMatcher) PathPatternRequestMatcher.withDefaults().matcher(pattern))
+            .toList());
+
     private final JwtService jwtService;
+    private final TokenRevocationService tokenRevocationService;
 
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return PUBLIC_PATHS.matches(request);
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
         try {
-            String token = null;
-            final String authHeader = request.getHeader("Authorization");
-            if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                token = authHeader.substring(7);
-            }
-            if (token == null) {
-                token = jwtService.getJwtFromCookies(request);
-            }
+            String token = jwtService.getJwtFromRequest(request);
 
             if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                String username = jwtService.extractUserName(token);
-                if (username != null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                    if (jwtService.isTokenValid(token, userDetails)) {
-                        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities()
-                        );
-                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
-                    }
-                }
+                // Signature and expiry are checked here, once; a rejected token is counted, not thrown.
+                jwtService.tryVerifyToken(token).ifPresent(verified -> authenticate(request, verified));
             }
         } catch (Exception ex) {
             log.error("Could not set user authentication in security context", ex);
@@ -64,4 +66,35 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private void authenticate(HttpServletRequest request, VerifiedToken verified) {
+        if (verified.hasAuthorityClaims()) {
+            // The signed claims already vouch for the user, so no lookup is needed.
+            if (!tokenRevocationService.isRevoked(verified)) {
+                setAuthentication(request, verified, verified.getRole().getAuthorities());
+            }
+        } else if (verified.getUsername() != null) {
+            // Tokens issued before the role/uid claims were added: the user id for the not-before check
+            // comes from the loaded user instead.
+            UserDetails userDetails = userDetailsService.loadUserByUsername(verified.getUsername());
+            VerifiedToken withUserId = userDetails instanceof User user
+                    ? verified.toBuilder().userId(user.getId()).build()
+                    : verified;
+            if (verified.getUsername().equals(userDetails.getUsername())
+                    && !tokenRevocationService.isRevoked(withUserId)) {
+                setAuthentication(request, userDetails, userDetails.getAuthorities());
+            }
+        }
+    }
+
+    private void setAuthentication(HttpServletRequest request, Object principal,
+                                   Collection<? extends GrantedAuthority> authorities) {
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                principal,
+                null,
+                authorities
+        );
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
 }
@@ -0,0 +1,14 @@
+package com.mapnaom.foodapp.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} background jobs such as the refresh-token purge.
+ * They share a pool of {@code spring.task.scheduling.pool.size} threads, so a long purge
+ * does not hold up the revocation sync or the serving-roster write-back.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,6 +1,7 @@
 package com.mapnaom.foodapp.config;
 
-import com.mapnaom.foodapp.repository.UserRepository;
+import com.mapnaom.foodapp.service.UserCacheService;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -30,8 +31,16 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class WebSecurityConfig {
 
+    /**
+     * Paths reachable without authentication. {@link JwtRequestFilter} skips these entirely,
+     * so this single table drives both the authorization rules and the filter.
+     */
+    public static final String[] PUBLIC_PATHS = {
+            "/api/v1/auth/**", "/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html"
+    };
+
     private final Http401UnauthorizedEntryPoint unauthorizedEntryPoint;
-    private final UserRepository userRepository;
+    private final UserCacheService userCacheService;
     private final JwtRequestFilter jwtRequestFilter;
 
     @Value("${application.frontend.origins:http://localhost:3000}")
@@ -39,7 +48,7 @@ public class WebSecurityConfig {
 
     @Bean
     public UserDetailsService userDetailsService() {
-        return username -> userRepository.findByUsername(username)
+        return username -> userCacheService.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found: " + username));
     }
 
@@ -82,7 +91,10 @@ public class WebSecurityConfig {
                 .exceptionHandling(e -> e.authenticationEntryPoint(unauthorizedEntryPoint))
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authz -> authz
-                        .requestMatchers("/api/v1/auth/**", "/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
+                        // Streamed downloads finish on an async dispatch that carries no token;
+                        // the originating request has already been authorized.
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers(PUBLIC_PATHS).permitAll()
                         .anyRequest().authenticated()
                 );
 
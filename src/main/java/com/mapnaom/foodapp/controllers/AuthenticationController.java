@@ -1,5 +1,6 @@
 package com.mapnaom.foodapp.controllers;
 
+import com.mapnaom.foodapp.exceptions.InvalidUsernameOrPasswordException;
 import com.mapnaom.foodapp.payload.request.AuthenticationRequest;
 import com.mapnaom.foodapp.payload.request.RefreshTokenRequest;
 import com.mapnaom.foodapp.payload.request.RegisterRequest;
@@ -7,7 +8,9 @@ import com.mapnaom.foodapp.payload.response.AuthenticationResponse;
 import com.mapnaom.foodapp.payload.response.RefreshTokenResponse;
 import com.mapnaom.foodapp.service.AuthenticationService;
 import com.mapnaom.foodapp.service.JwtService;
+import com.mapnaom.foodapp.service.LoginThrottleService;
 import com.mapnaom.foodapp.service.RefreshTokenService;
+import com.mapnaom.foodapp.service.TokenRevocationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -38,15 +41,21 @@ public class AuthenticationController {
     private final AuthenticationService authenticationService;
     private final RefreshTokenService refreshTokenService;
     private final JwtService jwtService;
+    private final LoginThrottleService loginThrottleService;
+    private final TokenRevocationService tokenRevocationService;
 
     @PostMapping("/register")
-    public ResponseEntity<AuthenticationResponse> register(@Valid @RequestBody RegisterRequest request) {
-        AuthenticationResponse authenticationResponse = authenticationService.register(request);
+    public ResponseEntity<AuthenticationResponse> register(@Valid @RequestBody RegisterRequest request,
+                                                           HttpServletRequest httpRequest) {
+        String deviceId = refreshTokenService.getDeviceIdFromCookies(httpRequest);
+        AuthenticationResponse authenticationResponse = authenticationService.register(
+                request, deviceId, httpRequest.getHeader(HttpHeaders.USER_AGENT));
         ResponseCookie jwtCookie = jwtService.generateJwtCookie(authenticationResponse.getAccessToken());
         ResponseCookie refreshTokenCookie = refreshTokenService.generateRefreshTokenCookie(authenticationResponse.getRefreshToken());
         return ResponseEntity.ok()
                 .header(HttpHeaders.SET_COOKIE, jwtCookie.toString())
                 .header(HttpHeaders.SET_COOKIE,refreshTokenCookie.toString())
+                .header(HttpHeaders.SET_COOKIE, refreshTokenService.generateDeviceIdCookie(deviceId).toString())
                 .body(authenticationResponse);
     }
 
@@ -61,16 +70,33 @@ public class AuthenticationController {
                             description = "Unauthorized",
                             responseCode = "401",
                             content = {@Content(schema = @Schema(implementation = ErrorResponse.class), mediaType = "application/json")}
+                    ),
+                    @ApiResponse(
+                            description = "Too many login attempts",
+                            responseCode = "429"
                     )
             }
     )
-    public ResponseEntity<AuthenticationResponse> authenticate(@RequestBody AuthenticationRequest request) {
-        AuthenticationResponse authenticationResponse = authenticationService.authenticate(request);
+    public ResponseEntity<AuthenticationResponse> authenticate(@RequestBody AuthenticationRequest request,
+                                                               HttpServletRequest httpRequest) {
+        // Behind the proxy this is the forwarded client address (server.forward-headers-strategy)
+        loginThrottleService.acquire(request.getUsername(), httpRequest.getRemoteAddr());
+        // The device cookie lets a repeat login from the same browser reuse its session slot.
+        String deviceId = refreshTokenService.getDeviceIdFromCookies(httpRequest);
+        AuthenticationResponse authenticationResponse;
+        try {
+            authenticationResponse = authenticationService.authenticate(
+                    request, deviceId, httpRequest.getHeader(HttpHeaders.USER_AGENT));
+        } catch (InvalidUsernameOrPasswordException e) {
+            loginThrottleService.loginFailed(request.getUsername());
+            throw e;
+        }
         ResponseCookie jwtCookie = jwtService.generateJwtCookie(authenticationResponse.getAccessToken());
         ResponseCookie refreshTokenCookie = refreshTokenService.generateRefreshTokenCookie(authenticationResponse.getRefreshToken());
         return ResponseEntity.ok()
                 .header(HttpHeaders.SET_COOKIE,jwtCookie.toString())
                 .header(HttpHeaders.SET_COOKIE,refreshTokenCookie.toString())
+                .header(HttpHeaders.SET_COOKIE, refreshTokenService.generateDeviceIdCookie(deviceId).toString())
                 .body(authenticationResponse);
     }
     @PostMapping("/refresh-token")
@@ -84,8 +110,11 @@ public class AuthenticationController {
         RefreshTokenResponse refreshTokenResponse = refreshTokenService
                 .generateNewToken(new RefreshTokenRequest(refreshToken));
         ResponseCookie NewJwtCookie = jwtService.generateJwtCookie(refreshTokenResponse.getAccessToken());
+        // With rotation enabled the old refresh token is now spent, so hand out its successor.
+        ResponseCookie refreshTokenCookie = refreshTokenService.generateRefreshTokenCookie(refreshTokenResponse.getRefreshToken());
         return ResponseEntity.ok()
                 .header(HttpHeaders.SET_COOKIE, NewJwtCookie.toString())
+                .header(HttpHeaders.SET_COOKIE, refreshTokenCookie.toString())
                 .build();
     }
     @GetMapping("/info")
@@ -100,6 +129,8 @@ public class AuthenticationController {
         if(refreshToken != null) {
            refreshTokenService.deleteByToken(refreshToken);
         }
+        // Otherwise the access token would stay usable until it expires.
+        tokenRevocationService.revokeToken(jwtService.getJwtFromRequest(request));
         ResponseCookie jwtCookie = jwtService.getCleanJwtCookie();
         ResponseCookie refreshTokenCookie = refreshTokenService.getCleanRefreshTokenCookie();
         return ResponseEntity.ok()
@@ -108,4 +139,17 @@ public class AuthenticationController {
                 .build();
 
     }
+
+    @PostMapping("/logout-all")
+    public ResponseEntity<Void> logoutAllDevices(HttpServletRequest request){
+        String refreshToken = refreshTokenService.getRefreshTokenFromCookies(request);
+        refreshTokenService.deleteAllSessionsByToken(refreshToken);
+        tokenRevocationService.revokeAllForTokenOwner(jwtService.getJwtFromRequest(request));
+        ResponseCookie jwtCookie = jwtService.getCleanJwtCookie();
+        ResponseCookie refreshTokenCookie = refreshTokenService.getCleanRefreshTokenCookie();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE,jwtCookie.toString())
+                .header(HttpHeaders.SET_COOKIE,refreshTokenCookie.toString())
+                .build();
+    }
 }
@@ -2,9 +2,10 @@ package com.mapnaom.foodapp.controllers;
 
 import com.mapnaom.foodapp.dtos.DailyMealDto;
 import com.mapnaom.foodapp.dtos.DailyMealListDto;
+import com.mapnaom.foodapp.dtos.ImportJobDto;
 import com.mapnaom.foodapp.searchForms.DailyMealSearchForm;
 import com.mapnaom.foodapp.services.DailyMealService;
-import com.mapnaom.foodapp.utils.ImportResult;
+import com.mapnaom.foodapp.services.ImportJobService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -32,6 +33,7 @@ import java.util.List;
 @Tag(name = "Daily Meals", description = "Daily Meal management")
 public class DailyMealController {
     private final DailyMealService dailyMealService;
+    private final ImportJobService importJobService;
 
     /**
      * Retrieves a List of DailyMeal entries for the given Jalali year and month.
@@ -150,28 +152,16 @@ public class DailyMealController {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    /**
+     * Queues an Excel file of (Jalali date, dish id) rows for import into the daily menus.
+     *
+     * @return the queued job; poll {@code /api/import-jobs/{id}} for its progress
+     */
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @PreAuthorize("hasRole('ADMIN') or hasRole('MEAL_MANAGER')")
-    public ResponseEntity<String> uploadFile(@RequestParam("file") MultipartFile file) {
-        try {
-            ImportResult result = dailyMealService.importDailyMealsFromExcel(file);
-
-            if (result.getErrorCount() > 0) {
-                return ResponseEntity.ok(
-                        "تعداد %d وعده غذایی با موفقیت وارد شد. %d خطا رخ داد."
-                                .formatted(result.getSuccessCount(), result.getErrorCount())
-                );
-            }
-
-            return ResponseEntity.ok(
-                    "تعداد %d وعده غذایی با موفقیت از فایل اکسل وارد شد."
-                            .formatted(result.getSuccessCount())
-            );
-
-        } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                    .body("خطا در وارد کردن فایل: %s".formatted(e.getMessage()));
-        }
+    public ResponseEntity<ImportJobDto> uploadFile(@RequestParam("file") MultipartFile file) {
+        ImportJobDto job = importJobService.submit("daily-meals", file, dailyMealService::importDailyMealsFromExcel);
+        return ResponseEntity.accepted().body(job);
     }
 
 
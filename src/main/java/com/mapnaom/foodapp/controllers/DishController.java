@@ -1,11 +1,13 @@
 package com.mapnaom.foodapp.controllers;
 
 import com.mapnaom.foodapp.dtos.DishDto;
+import com.mapnaom.foodapp.dtos.ImportJobDto;
 import com.mapnaom.foodapp.dtos.SelectOption;
 import com.mapnaom.foodapp.mappers.DishMapper;
 import com.mapnaom.foodapp.repository.DishRepository;
 import com.mapnaom.foodapp.searchForms.DishSearchForm;
 import com.mapnaom.foodapp.services.DishService;
+import com.mapnaom.foodapp.services.ImportJobService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.constraints.NotNull;
@@ -16,7 +18,9 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @CrossOrigin
@@ -26,7 +30,10 @@ import java.util.List;
 @Tag(name = "Dishes", description = "Dish management")
 public class DishController {
 
+    private static final MediaType CSV_UTF8 = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
     private final DishService dishService;
+    private final ImportJobService importJobService;
     private final DishRepository dishRepository;
     private final DishMapper dishMapper;
 
@@ -99,35 +106,42 @@ public class DishController {
     }
 
     /**
-     * Imports dishes from an uploaded Excel file.
+     * Queues an uploaded Excel file of dishes for import.
      *
      * @param file the Excel file containing dish records
-     * @return a list of imported DishDto objects
+     * @return the queued job; poll {@code /api/import-jobs/{id}} for its progress
      */
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<String> uploadFile(@RequestParam("file") MultipartFile file){
-        List<DishDto> importedDishes = dishService.importDishesFromExcel(file);
-        return ResponseEntity.ok("تعداد %d رکورد غذا با موفقیت از فایل اکسل وارد شد.".formatted(importedDishes.size()));
+    public ResponseEntity<ImportJobDto> uploadFile(@RequestParam("file") MultipartFile file){
+        return ResponseEntity.accepted().body(importJobService.submit("dishes", file, dishService::importDishesFromExcel));
     }
 
     @GetMapping("/download-all-dishes.xlsx")
     @Operation(summary = "Export dishes to an Excel file")
-    public ResponseEntity<byte[]> exportDishes(
+    public ResponseEntity<StreamingResponseBody> exportDishes(
             @ModelAttribute DishSearchForm form,
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(defaultValue = "ASC") String order) {
 
-        try {
-            byte[] fileContent = dishService.exportDishesToExcel(form, sortBy, order);
+        StreamingResponseBody body = out -> dishService.exportDishesToExcel(form, sortBy, order, out);
+        return ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=dishes.xlsx")
+                .header("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+                .body(body);
+    }
 
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "attachment; filename=dishes.xlsx")
-                    .header("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
-                    .body(fileContent);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    @GetMapping(value = "/download-all-dishes.csv", produces = "text/csv")
+    @Operation(summary = "Export dishes to a CSV file")
+    public ResponseEntity<StreamingResponseBody> exportDishesToCsv(
+            @ModelAttribute DishSearchForm form,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "ASC") String order) {
+
+        StreamingResponseBody body = out -> dishService.exportDishesToCsv(form, sortBy, order, out);
+        return ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=dishes.csv")
+                .contentType(CSV_UTF8)
+                .body(body);
     }
 
 }
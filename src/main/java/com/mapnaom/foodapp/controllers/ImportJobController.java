@@ -0,0 +1,34 @@
+package com.mapnaom.foodapp.controllers;
+
+import com.mapnaom.foodapp.dtos.ImportJobDto;
+import com.mapnaom.foodapp.services.ImportJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Status of background imports queued by the upload endpoints.
+ */
+@CrossOrigin
+@RestController
+@RequestMapping("/api/import-jobs")
+@RequiredArgsConstructor
+@Tag(name = "Import jobs", description = "Progress of background Excel imports")
+public class ImportJobController {
+
+    private final ImportJobService importJobService;
+
+    /**
+     * Returns the progress, row counts and row errors of an import job.
+     *
+     * @param id the job id returned by the upload
+     * @return the job, or 404 if it is unknown, belongs to another user or has expired
+     */
+    @GetMapping("/{id}")
+    @Operation(summary = "Get the status of an import job")
+    public ResponseEntity<ImportJobDto> getImportJob(@PathVariable String id) {
+        return ResponseEntity.of(importJobService.findJob(id));
+    }
+}
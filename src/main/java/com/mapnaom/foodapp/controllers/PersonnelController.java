@@ -1,17 +1,22 @@
 package com.mapnaom.foodapp.controllers;
 
+import com.mapnaom.foodapp.dtos.ImportJobDto;
 import com.mapnaom.foodapp.dtos.PersonnelDto;
 import com.mapnaom.foodapp.dtos.SelectOption;
+import com.mapnaom.foodapp.services.ImportJobService;
 import com.mapnaom.foodapp.services.PersonnelService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -29,6 +34,7 @@ import java.util.List;
 public class PersonnelController {
 
     private final PersonnelService personnelService;
+    private final ImportJobService importJobService;
 
     /**
      * Creates a new personnel record.
@@ -122,19 +128,30 @@ public class PersonnelController {
     }
 
     @PostMapping("/import")
-    @Operation(summary = "Import personnel from an Excel file")
-    public ResponseEntity<List<PersonnelDto>> importPersonnelFromExcel(@RequestParam("file") MultipartFile file) {
-        List<PersonnelDto> importedPersonnel = personnelService.importFromExcel(file);
-        return new ResponseEntity<>(importedPersonnel, HttpStatus.CREATED);
+    @Operation(summary = "Queue an Excel file of personnel for import")
+    public ResponseEntity<ImportJobDto> importPersonnelFromExcel(@RequestParam("file") MultipartFile file) {
+        ImportJobDto job = importJobService.submit("personnel", file, personnelService::importFromExcel);
+        return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
     }
 
     // create exportToExcel class
     @GetMapping("/download-all-personnel.xlsx")
     @Operation(summary = "Export personnel to an Excel file")
-    public ResponseEntity<byte[]> exportPersonnelToExcel() {
-        byte[] excelData = personnelService.exportToExcel();
+    public ResponseEntity<StreamingResponseBody> exportPersonnelToExcel() {
+        StreamingResponseBody body = personnelService::exportToExcel;
         return ResponseEntity.ok()
                 .header("Content-Disposition", "attachment; filename=personnel.xlsx")
-                .body(excelData);
-        }
+                .header("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+                .body(body);
+    }
+
+    @GetMapping(value = "/download-all-personnel.csv", produces = "text/csv")
+    @Operation(summary = "Export personnel to a CSV file")
+    public ResponseEntity<StreamingResponseBody> exportPersonnelToCsv() {
+        StreamingResponseBody body = personnelService::exportToCsv;
+        return ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=personnel.csv")
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .body(body);
+    }
 }
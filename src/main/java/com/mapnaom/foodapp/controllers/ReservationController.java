@@ -11,6 +11,7 @@ import com.mapnaom.foodapp.services.ReservationService;
 import com.mapnaom.foodapp.specifications.ReservationSpecification;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -71,24 +72,45 @@ public class ReservationController {
     }
 
     @PutMapping("/batch-upsert")
-    public ResponseEntity<List<ReservationDto>> batchUpsertReservations(@RequestBody List<ReservationDto> reservationDtos) {
-        List<ReservationDto> results = reservationService.upsertReservations(reservationDtos);
+    @Operation(summary = "Create or update many reservations, reporting the outcome of each")
+    public ResponseEntity<List<ReservationUpsertResultDto>> batchUpsertReservations(@RequestBody List<ReservationDto> reservationDtos) {
+        List<ReservationUpsertResultDto> results = reservationService.upsertReservations(reservationDtos);
         return ResponseEntity.ok(results);
     }
 
     @PostMapping("/deliver/{id}")
     @Operation(summary = "Deliver a reservation")
-    public ResponseEntity<ReservationDto> deliverReservation(@PathVariable Long id) {
+    public ResponseEntity<ReservationStatusDto> deliverReservation(@PathVariable Long id) {
         return ResponseEntity.ok(
                 reservationService.deliverReservation(id));
     }
+    @PostMapping("/deliver-batch")
+    @Operation(summary = "Deliver many reservations at once")
+    public ResponseEntity<DeliveryBatchResultDto> deliverReservations(@Valid @RequestBody DeliveryBatchConfirmationRequest request) {
+        return ResponseEntity.ok(
+                reservationService.deliverReservations(request));
+    }
     @PostMapping("/undeliver/{id}")
+    @Operation(summary = "Undo the delivery of a reservation")
+    public ResponseEntity<ReservationStatusDto> undeliverReservation(@PathVariable Long id) {
+        return ResponseEntity.ok(
+                reservationService.undeliverReservation(id));
+    }
+
+    @PostMapping("/cancel/{id}")
     @Operation(summary = "Cancel a reservation")
-    public ResponseEntity<ReservationDto> cancelReservation(@PathVariable Long id) {
+    public ResponseEntity<ReservationStatusDto> cancelReservation(@PathVariable Long id) {
         return ResponseEntity.ok(
                 reservationService.cancelReservation(id));
     }
 
+    @PostMapping("/expire/{id}")
+    @Operation(summary = "Expire a reservation that was not collected")
+    public ResponseEntity<ReservationStatusDto> expireReservation(@PathVariable Long id) {
+        return ResponseEntity.ok(
+                reservationService.expireReservation(id));
+    }
+
 
 
     @GetMapping("/byDate")
@@ -178,4 +200,22 @@ public class ReservationController {
                 .getReservationsByDate(date);
         return ResponseEntity.ok(reservations);
     }
+
+    @GetMapping("/serving/by-pers-code/{persCode}")
+    @Operation(summary = "Get today's serving-list entry of an employee by personnel code")
+    public ResponseEntity<DailyPersonnelReservationListDto> getServingEntryByPersCode(@PathVariable String persCode) {
+        return ResponseEntity.ok(reservationService.getServingEntryByPersCode(persCode));
+    }
+
+    @GetMapping("/serving/by-personnel/{personnelId}")
+    @Operation(summary = "Get today's serving-list entry of an employee by personnel id")
+    public ResponseEntity<DailyPersonnelReservationListDto> getServingEntryByPersonnelId(@PathVariable Long personnelId) {
+        return ResponseEntity.ok(reservationService.getServingEntryByPersonnelId(personnelId));
+    }
+
+    @PostMapping("/serving/by-pers-code/{persCode}/deliver")
+    @Operation(summary = "Deliver today's reservation of an employee by personnel code")
+    public ResponseEntity<ReservationStatusDto> deliverByPersCode(@PathVariable String persCode) {
+        return ResponseEntity.ok(reservationService.deliverByPersCode(persCode));
+    }
 }
@@ -2,19 +2,25 @@ package com.mapnaom.foodapp.controllers;
 import com.mapnaom.foodapp.exceptions.ExcelProcessingException;
 
 import com.mapnaom.foodapp.dtos.UserDto;
+import com.mapnaom.foodapp.dtos.UserSessionDto;
 import com.mapnaom.foodapp.searchForms.UserSearchForm;
+import com.mapnaom.foodapp.service.RefreshTokenService;
 import com.mapnaom.foodapp.services.UserService;
 import com.mapnaom.foodapp.utils.ExcelUtil;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/users")
@@ -22,6 +28,7 @@ import java.io.IOException;
 public class UserController {
 
     private final UserService userService;
+    private final RefreshTokenService refreshTokenService;
 
     @PreAuthorize("hasAuthority('ADMIN')")
     @PostMapping
@@ -64,6 +71,16 @@ public class UserController {
                 .body(excelData);
     }
 
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping(value = "/export", produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> exportUsersToCsv() {
+        StreamingResponseBody body = userService::exportUsersToCsv;
+        return ResponseEntity.ok()
+                .header("Content-Disposition", "attachment; filename=users.csv")
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .body(body);
+    }
+
     @PreAuthorize("hasAuthority('ADMIN')")
     @PostMapping("/import")
     public ResponseEntity<Void> importUsersFromExcel(@RequestParam("file") MultipartFile file) throws IOException, ExcelProcessingException {
@@ -74,4 +91,17 @@ public class UserController {
         }
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/{id}/sessions")
+    public ResponseEntity<List<UserSessionDto>> getUserSessions(@PathVariable Long id) {
+        return ResponseEntity.ok(refreshTokenService.findActiveSessions(id));
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @DeleteMapping("/{id}/sessions")
+    public ResponseEntity<Void> deleteUserSessions(@PathVariable Long id) {
+        refreshTokenService.deleteAllSessionsForUser(id);
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -0,0 +1,20 @@
+package com.mapnaom.foodapp.dtos;
+
+import com.mapnaom.foodapp.enums.ReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cheap summary of one day's reservations in one status. Two reads of the same day differ whenever a
+ * reservation was added, removed, moved to another dish or changed status in between.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyReservationsFingerprintDto {
+    private ReservationStatus reservationStatus;
+    private Long count;
+    private Long idSum;
+    private Long dishIdSum;
+}
@@ -0,0 +1,24 @@
+package com.mapnaom.foodapp.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Outcome of a {@link DeliveryBatchConfirmationRequest}. Every requested id appears in exactly one list;
+ * {@code notDeliverable} holds reservations that are cancelled, expired or still pending.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryBatchResultDto {
+    private String deliveredBy;
+    private LocalDateTime deliveredAt;
+    private List<Long> delivered;
+    private List<Long> alreadyDelivered;
+    private List<Long> notFound;
+    private List<Long> notDeliverable;
+}
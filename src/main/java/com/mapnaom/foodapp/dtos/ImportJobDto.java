@@ -0,0 +1,39 @@
+package com.mapnaom.foodapp.dtos;
+
+import com.mapnaom.foodapp.enums.ImportJobStatus;
+import com.mapnaom.foodapp.utils.ExcelUtil;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Snapshot of a background import. {@code totalRows} is known once the file has been read;
+ * until then {@code percentComplete} is null while {@code rowsRead} and {@code rowsProcessed} grow.
+ * {@code errors} holds the first row errors only; {@code errorCount} is the total.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobDto {
+    private String id;
+    private String type;
+    private String filename;
+    private ImportJobStatus status;
+    private Integer totalRows;
+    private int rowsRead;
+    private int rowsProcessed;
+    private Integer percentComplete;
+    private int successCount;
+    private int skippedCount;
+    private int errorCount;
+    private List<ExcelUtil.ExcelError> errors;
+    private String failureMessage;
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+}
@@ -0,0 +1,20 @@
+package com.mapnaom.foodapp.dtos;
+
+import com.mapnaom.foodapp.enums.ReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Result of a reservation status change, built without loading the reservation.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationStatusDto {
+    private Long id;
+    private ReservationStatus reservationStatus;
+    private Instant changedAt;
+}
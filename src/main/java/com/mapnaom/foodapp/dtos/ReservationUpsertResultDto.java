@@ -0,0 +1,43 @@
+package com.mapnaom.foodapp.dtos;
+
+import lombok.Value;
+
+/**
+ * Outcome of one item of a batch reservation upsert. {@code index} is the item's position in the request.
+ */
+@Value
+public class ReservationUpsertResultDto {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        NOT_FOUND,
+        INVALID,
+        CONFLICT
+    }
+
+    int index;
+    Status status;
+    ReservationDto reservation;
+    String message;
+
+    public static ReservationUpsertResultDto created(int index, ReservationDto reservation) {
+        return new ReservationUpsertResultDto(index, Status.CREATED, reservation, null);
+    }
+
+    public static ReservationUpsertResultDto updated(int index, ReservationDto reservation) {
+        return new ReservationUpsertResultDto(index, Status.UPDATED, reservation, null);
+    }
+
+    public static ReservationUpsertResultDto notFound(int index, String message) {
+        return new ReservationUpsertResultDto(index, Status.NOT_FOUND, null, message);
+    }
+
+    public static ReservationUpsertResultDto invalid(int index, String message) {
+        return new ReservationUpsertResultDto(index, Status.INVALID, null, message);
+    }
+
+    public static ReservationUpsertResultDto conflict(int index, String message) {
+        return new ReservationUpsertResultDto(index, Status.CONFLICT, null, message);
+    }
+}
@@ -0,0 +1,22 @@
+package com.mapnaom.foodapp.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One live login of a user on one device, read straight from {@code refresh_token} without loading entities.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSessionDto {
+    private UUID sessionId;
+    private String deviceId;
+    private String deviceName;
+    private Instant lastRefreshedAt;
+    private Instant expiresAt;
+}
@@ -5,30 +5,73 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.Instant;
+import java.util.UUID;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_refresh_token_family", columnList = "family_id"),
+        @Index(name = "idx_refresh_token_user_device", columnList = "user_id, device_id"),
+        @Index(name = "idx_refresh_token_expiry_date", columnList = "expiry_date")
+})
 public class RefreshToken {
 
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     private User user;
 
-    @Column(nullable = false, unique = true)
-    private String token;
+    /**
+     * SHA-256 of the token handed to the client; the plaintext is never stored.
+     */
+    @Column(name = "token_hash", unique = true, length = 32)
+    private byte[] tokenHash;
+
+    /**
+     * Shared by every token descended from one login through rotation.
+     */
+    @Column(name = "family_id")
+    private UUID familyId;
+
+    /**
+     * Browser/app instance the session belongs to, taken from the device cookie.
+     */
+    @Column(name = "device_id", length = 64)
+    private String deviceId;
+
+    /**
+     * User-Agent at login, shown to admins when listing sessions.
+     */
+    @Column(name = "device_name")
+    private String deviceName;
 
-    @Column(nullable = false)
+    @Column(name = "issued_at")
+    private Instant issuedAt;
+
+    @Column(name = "expiry_date", nullable = false)
     private Instant expiryDate;
 
     public boolean revoked;
 
+    /**
+     * Set once the token has been exchanged for its successor; presenting it again means reuse.
+     */
+    @ColumnDefault("false")
+    private boolean rotated;
+
+    /**
+     * Plaintext token, only known right after creation or lookup.
+     */
+    @Transient
+    private String token;
+
 }
@@ -0,0 +1,47 @@
+package com.mapnaom.foodapp.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Durable copy of the in-memory access-token deny-list. A row either denies one token by its
+ * {@code jti}, or every token of a user issued before {@code notBefore}; it is useless after
+ * {@code expiresAt} and is purged then.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "revoked_access_token", indexes = {
+        @Index(name = "idx_revoked_access_token_expires", columnList = "expires_at"),
+        @Index(name = "idx_revoked_access_token_created", columnList = "created_at")
+})
+public class RevokedAccessToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @Column(name = "token_id", length = 36)
+    private String tokenId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "not_before")
+    private Instant notBefore;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
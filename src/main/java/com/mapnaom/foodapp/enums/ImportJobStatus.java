@@ -0,0 +1,9 @@
+package com.mapnaom.foodapp.enums;
+
+public enum ImportJobStatus {
+    QUEUED, // Accepted and waiting for a free import worker
+    READING, // Rows are being read and validated
+    WRITING, // Valid rows are being committed chunk by chunk
+    COMPLETED,
+    FAILED // The file could not be processed at all; rows committed before the failure are kept
+}
@@ -1,7 +1,6 @@
 package com.mapnaom.foodapp.enums;
 
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import java.util.List;
@@ -10,7 +9,6 @@ import java.util.stream.Collectors;
 
 import static com.mapnaom.foodapp.enums.Privilege.*;
 
-@RequiredArgsConstructor
 public enum Role {
     ADMIN(
             Set.of(READ_PRIVILEGE,WRITE_PRIVILEGE,UPDATE_PRIVILEGE,DELETE_PRIVILEGE)
@@ -22,12 +20,20 @@ public enum Role {
     @Getter
     private final Set<Privilege> privileges;
 
-    public List<SimpleGrantedAuthority> getAuthorities(){
-        List<SimpleGrantedAuthority> authorities = getPrivileges()
+    // Computed once per role; the request filter hands this same list to every Authentication.
+    private final List<SimpleGrantedAuthority> authorities;
+
+    Role(Set<Privilege> privileges) {
+        this.privileges = privileges;
+        List<SimpleGrantedAuthority> granted = privileges
                 .stream()
                 .map(privilege -> new SimpleGrantedAuthority(privilege.name()))
                 .collect(Collectors.toList());
-        authorities.add(new SimpleGrantedAuthority("ROLE_"+this.name()));
+        granted.add(new SimpleGrantedAuthority("ROLE_"+this.name()));
+        this.authorities = List.copyOf(granted);
+    }
+
+    public List<SimpleGrantedAuthority> getAuthorities(){
         return authorities;
     }
 }
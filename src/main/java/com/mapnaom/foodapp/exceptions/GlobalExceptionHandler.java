@@ -161,6 +161,25 @@ public class GlobalExceptionHandler {
         return createErrorResponse("User account is disabled", HttpStatus.FORBIDDEN);
     }
 
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<Map<String, Object>> handleLoginThrottledException(LoginThrottledException ex) {
+        // Expected under load; a stack trace per rejected login would only add to it.
+        logger.warn("Login throttled: {}", ex.getMessage());
+        return createErrorResponse(ex.getMessage(), HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @ExceptionHandler(ImportJobRejectedException.class)
+    public ResponseEntity<Map<String, Object>> handleImportJobRejectedException(ImportJobRejectedException ex) {
+        logger.warn("Import rejected: {}", ex.getMessage());
+        return createErrorResponse(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(ReservationStatusConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleReservationStatusConflictException(ReservationStatusConflictException ex) {
+        logger.warn("Reservation status conflict: {}", ex.getMessage());
+        return createErrorResponse(ex.getMessage(), HttpStatus.CONFLICT);
+    }
+
     private ResponseEntity<Map<String, Object>> createErrorResponse(String message, HttpStatus status) {
         Map<String, Object> errorDetails = new HashMap<>();
         errorDetails.put("timestamp", LocalDateTime.now());
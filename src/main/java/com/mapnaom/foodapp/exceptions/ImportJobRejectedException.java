@@ -0,0 +1,11 @@
+package com.mapnaom.foodapp.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ImportJobRejectedException extends RuntimeException {
+    public ImportJobRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,21 @@
+package com.mapnaom.foodapp.exceptions;
+
+import com.mapnaom.foodapp.enums.ReservationStatus;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * A reservation was not in a status its requested change can start from, typically because another
+ * request changed it first.
+ */
+@Getter
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ReservationStatusConflictException extends RuntimeException {
+    private final ReservationStatus currentStatus;
+
+    public ReservationStatusConflictException(Long id, ReservationStatus currentStatus, ReservationStatus targetStatus) {
+        super("Reservation %d is %s and cannot become %s".formatted(id, currentStatus, targetStatus));
+        this.currentStatus = currentStatus;
+    }
+}
@@ -14,7 +14,8 @@ import java.util.List;
 @ToString
 public class CostCenter {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cost_center_seq")
+    @SequenceGenerator(name = "cost_center_seq", sequenceName = "cost_center_seq", allocationSize = 50)
     @Column(nullable = false)
     private Long id;
     private String name;
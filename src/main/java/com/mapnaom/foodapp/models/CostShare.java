@@ -25,7 +25,8 @@ public class CostShare implements Serializable {
     private static final long serialVersionUID = 9091628922889320000L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cost_shares_seq")
+    @SequenceGenerator(name = "cost_shares_seq", sequenceName = "cost_shares_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Long id;
 
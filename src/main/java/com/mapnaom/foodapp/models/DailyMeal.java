@@ -24,7 +24,9 @@ import static com.mapnaom.foodapp.utils.JalaliUtils.toJalali;
 
 public class DailyMeal extends Auditable<String> {
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "daily_meal_seq")
+    @SequenceGenerator(name = "daily_meal_seq", sequenceName = "daily_meal_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "meal_date", nullable = false)
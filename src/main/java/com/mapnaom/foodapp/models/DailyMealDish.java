@@ -13,7 +13,8 @@ import lombok.*;
 
 public class DailyMealDish {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "daily_meal_dish_seq")
+    @SequenceGenerator(name = "daily_meal_dish_seq", sequenceName = "daily_meal_dish_seq", allocationSize = 50)
     private Long id;
     @ManyToOne
     private DailyMeal dailyMeal;
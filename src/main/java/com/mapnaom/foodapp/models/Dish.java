@@ -13,7 +13,8 @@ import lombok.*;
 public class Dish extends Auditable<String> {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dish_seq")
+    @SequenceGenerator(name = "dish_seq", sequenceName = "dish_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
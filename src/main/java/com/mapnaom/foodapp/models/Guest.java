@@ -15,7 +15,8 @@ import org.hibernate.type.SqlTypes;
 @NoArgsConstructor
 public class Guest {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "guest_seq")
+    @SequenceGenerator(name = "guest_seq", sequenceName = "guest_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Long id;
 
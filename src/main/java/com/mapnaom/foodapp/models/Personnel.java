@@ -13,7 +13,8 @@ import lombok.*;
 public class Personnel extends Auditable<String> {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "personnel_seq")
+    @SequenceGenerator(name = "personnel_seq", sequenceName = "personnel_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
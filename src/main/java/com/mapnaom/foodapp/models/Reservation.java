@@ -12,10 +12,12 @@ import java.time.LocalDateTime;
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "reservation")
+@Table(name = "reservation", uniqueConstraints = @UniqueConstraint(
+        name = "uk_reservation_personnel_daily_meal", columnNames = {"personnel_id", "daily_meal_id"}))
 public class Reservation extends Auditable<String> {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservation_seq")
+    @SequenceGenerator(name = "reservation_seq", sequenceName = "reservation_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
@@ -37,6 +39,12 @@ public class Reservation extends Auditable<String> {
     @Column(name = "reservation_status", nullable = false)
     private ReservationStatus reservationStatus = ReservationStatus.ACTIVE;
 
+    @Column(name = "delivered_by")
+    private String deliveredBy;
+
+    @Column(name = "delivered_at")
+    private LocalDateTime deliveredAt;
+
     @OneToOne(mappedBy = "reservation", cascade = CascadeType.ALL, orphanRemoval = true)
     private CostShare costShare;
 
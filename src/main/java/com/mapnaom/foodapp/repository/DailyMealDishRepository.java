@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -18,6 +19,9 @@ public interface DailyMealDishRepository extends JpaRepository<DailyMealDish, Lo
     @Query("select d from DailyMealDish d where d.dailyMeal = :dailyMeal")
     List<DailyMealDish> findByDailyMeal(@Param("dailyMeal") DailyMeal dailyMeal);
 
+    @Query("select d from DailyMealDish d join fetch d.dish join fetch d.dailyMeal where d.id in :ids")
+    List<DailyMealDish> findAllWithDishAndDailyMealByIdIn(@Param("ids") Collection<Long> ids);
+
     @Query("select (count(d) > 0) from DailyMealDish d where d.dish.id = :dishId")
     boolean existsAllByDishId(@Param("dishId") Long dishId);
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.mapnaom.foodapp.repository;
 
+import com.mapnaom.foodapp.dtos.DishDto;
 import com.mapnaom.foodapp.models.Dish;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
@@ -8,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -22,4 +24,10 @@ public interface DishRepository extends JpaRepository<Dish, Long>, JpaSpecificat
     @Query("select (count(d) > 0) from Dish d where d.name = :name and d.price = :price and d.id <> :id")
     boolean existsDishByNameAndPriceAndIdNot(@Param("name") String name, @Param("price") Integer price, @Param("id") Long id);
 
+    /**
+     * Every dish carrying one of the given names, for resolving (name, price) duplicates of a whole import at once.
+     */
+    @Query("select new com.mapnaom.foodapp.dtos.DishDto(d.id, d.name, d.price) from Dish d where d.name in :names")
+    List<DishDto> findAllByNameIn(@Param("names") Collection<String> names);
+
 }
\ No newline at end of file
@@ -1,13 +1,20 @@
 package com.mapnaom.foodapp.repository;
 
+import com.mapnaom.foodapp.dtos.PersonnelDto;
 import com.mapnaom.foodapp.models.Personnel;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 
 @Repository
@@ -30,4 +37,24 @@ public interface PersonnelRepository extends JpaRepository<Personnel, Long>, Jpa
 
     @Query("select p from Personnel p where p.username = :currentUsername")
     Personnel findByUsername(@Param("currentUsername") String currentUsername);
+
+    @Query("select p from Personnel p where p.username in :usernames")
+    List<Personnel> findAllByUsernameIn(@Param("usernames") Collection<String> usernames);
+
+    /**
+     * Personnel holding any of the given personnel codes or usernames, for checking a whole import chunk at once.
+     */
+    @Query("select p from Personnel p where p.persCode in :persCodes or p.username in :usernames")
+    List<Personnel> findAllByPersCodeInOrUsernameIn(@Param("persCodes") Collection<String> persCodes,
+                                                    @Param("usernames") Collection<String> usernames);
+
+    /**
+     * Streams every personnel row as a DTO for export. Must be consumed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("""
+            select new com.mapnaom.foodapp.dtos.PersonnelDto(p.id, p.username, p.persCode, p.firstName, p.lastName)
+            from Personnel p
+            order by p.id""")
+    Stream<PersonnelDto> streamAllForExport();
 }
\ No newline at end of file
@@ -1,13 +1,100 @@
 package com.mapnaom.foodapp.repository;
 
+import com.mapnaom.foodapp.dtos.UserSessionDto;
 import com.mapnaom.foodapp.entities.RefreshToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
 
-    Optional<RefreshToken> findByToken(String token);
+    Optional<RefreshToken> findByTokenHash(byte[] tokenHash);
+
+    /**
+     * Marks a token as exchanged, but only if nobody else has used or revoked it first.
+     */
+    @Modifying
+    @Query("update RefreshToken r set r.rotated = true where r.id = :id and r.rotated = false and r.revoked = false")
+    int markRotated(@Param("id") long id);
+
+    @Modifying
+    @Query("update RefreshToken r set r.revoked = true where r.familyId = :familyId and r.revoked = false")
+    int revokeFamily(@Param("familyId") UUID familyId);
+
+    @Transactional
+    @Modifying
+    @Query("update RefreshToken r set r.revoked = true where r.user.id = :userId and r.revoked = false")
+    int revokeAllByUserId(@Param("userId") Long userId);
+
+    /**
+     * Ends the session, i.e. the whole rotation family, that the given token belongs to.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            delete from RefreshToken r
+            where r.familyId = (select t.familyId from RefreshToken t where t.tokenHash = :tokenHash)""")
+    int deleteSessionByTokenHash(@Param("tokenHash") byte[] tokenHash);
+
+    /**
+     * Ends every session of the user owning the given token.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            delete from RefreshToken r
+            where r.user.id = (select t.user.id from RefreshToken t where t.tokenHash = :tokenHash)""")
+    int deleteAllSessionsByTokenHash(@Param("tokenHash") byte[] tokenHash);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshToken r where r.user.id = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshToken r where r.user.id = :userId and r.deviceId = :deviceId")
+    int deleteByUserIdAndDeviceId(@Param("userId") Long userId, @Param("deviceId") String deviceId);
+
+    /**
+     * Keeps the {@code maxSessions} most recently refreshed sessions of the user and deletes the rest.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            delete from refresh_token
+            where family_id in (select family_id from refresh_token
+                                where user_id = :userId and revoked = false and rotated = false
+                                order by issued_at desc nulls last
+                                offset :maxSessions)""", nativeQuery = true)
+    int deleteSessionsBeyondLimit(@Param("userId") Long userId, @Param("maxSessions") int maxSessions);
+
+    @Query("""
+            select new com.mapnaom.foodapp.dtos.UserSessionDto(r.familyId, r.deviceId, r.deviceName, r.issuedAt, r.expiryDate)
+            from RefreshToken r
+            where r.user.id = :userId and r.revoked = false and r.rotated = false and r.expiryDate > :now
+            order by r.issuedAt desc""")
+    List<UserSessionDto> findActiveSessions(@Param("userId") Long userId, @Param("now") Instant now);
+
+    /**
+     * Deletes at most {@code batchSize} expired or revoked tokens in one statement and its own transaction.
+     * Rotated tokens stay until they expire so that their reuse can still be detected.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            delete from refresh_token
+            where id in (select id from refresh_token
+                         where expiry_date < :now or revoked = true
+                         limit :batchSize)""", nativeQuery = true)
+    int deleteExpiredOrRevokedBatch(@Param("now") Instant now, @Param("batchSize") int batchSize);
 
 }
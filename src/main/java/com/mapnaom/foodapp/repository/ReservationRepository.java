@@ -1,17 +1,23 @@
 package com.mapnaom.foodapp.repository;
 
 
+import com.mapnaom.foodapp.dtos.DailyReservationsFingerprintDto;
+import com.mapnaom.foodapp.dtos.ReservationStatusDto;
 import com.mapnaom.foodapp.enums.ReservationStatus;
 import com.mapnaom.foodapp.models.DailyMealDish;
 import com.mapnaom.foodapp.models.Personnel;
 import com.mapnaom.foodapp.models.Reservation;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -63,4 +69,221 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>,
     List<Reservation> findByPersonnelUsernameAndDailyMealIdAndReservationStatus(String username, Long dailyMealId, ReservationStatus status);
 
     Collection<Reservation> findByDailyMeal_Date(LocalDate date);
+
+    /**
+     * Moves the reservation to {@code to} only while its status is one of {@code from}, so of two
+     * concurrent transitions at most one takes effect. The delivery fields are overwritten, so pass
+     * null for them on any transition other than delivery.
+     *
+     * @return 1 if the status changed, 0 if the reservation does not exist or was in another status
+     */
+    @Modifying
+    @Query("""
+            update Reservation r
+            set r.reservationStatus = :to, r.deliveredBy = :deliveredBy, r.deliveredAt = :deliveredAt,
+                r.lastModifiedBy = :username, r.lastModifiedAt = :now
+            where r.id = :id and r.reservationStatus in :from""")
+    int transitionStatus(@Param("id") Long id,
+                         @Param("from") Collection<ReservationStatus> from,
+                         @Param("to") ReservationStatus to,
+                         @Param("deliveredBy") String deliveredBy,
+                         @Param("deliveredAt") LocalDateTime deliveredAt,
+                         @Param("username") String username,
+                         @Param("now") Instant now);
+
+    /**
+     * Marks every active reservation among {@code ids} delivered in one statement.
+     *
+     * @return the ids that were delivered; the others were missing or not active
+     */
+    @Query(value = """
+            with delivered as (
+                update reservation
+                set reservation_status = 'DELIVERED', delivered_by = :deliveredBy, delivered_at = :deliveredAt,
+                    last_modified_by = :username, last_modified_at = :now
+                where id in (:ids) and reservation_status = 'ACTIVE'
+                returning id
+            )
+            select id from delivered""", nativeQuery = true)
+    List<Long> deliverActive(@Param("ids") Collection<Long> ids,
+                             @Param("deliveredBy") String deliveredBy,
+                             @Param("deliveredAt") LocalDateTime deliveredAt,
+                             @Param("username") String username,
+                             @Param("now") Instant now);
+
+    /**
+     * Like {@link #deliverActive}, but each reservation keeps its own delivery time: {@code deliveredAts[i]}
+     * is recorded for {@code ids[i]}.
+     *
+     * @return the ids that were delivered; the others were missing or not active
+     */
+    @Query(value = """
+            with delivered as (
+                update reservation r
+                set reservation_status = 'DELIVERED', delivered_by = :deliveredBy, delivered_at = d.delivered_at,
+                    last_modified_by = :username, last_modified_at = :now
+                from unnest(cast(:ids as bigint[]), cast(:deliveredAts as timestamp[])) as d(id, delivered_at)
+                where r.id = d.id and r.reservation_status = 'ACTIVE'
+                returning r.id
+            )
+            select id from delivered""", nativeQuery = true)
+    List<Long> deliverActiveAt(@Param("ids") Long[] ids,
+                               @Param("deliveredAts") LocalDateTime[] deliveredAts,
+                               @Param("deliveredBy") String deliveredBy,
+                               @Param("username") String username,
+                               @Param("now") Instant now);
+
+    @Query("""
+            select new com.mapnaom.foodapp.dtos.ReservationStatusDto(r.id, r.reservationStatus, r.lastModifiedAt)
+            from Reservation r
+            where r.id in :ids""")
+    List<ReservationStatusDto> findStatusesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select r.reservationStatus from Reservation r where r.id = :id")
+    Optional<ReservationStatus> findStatusById(@Param("id") Long id);
+
+    /**
+     * Inserts the reservation of a personnel for a daily meal, or updates the one they already hold, in one
+     * statement; the unique index on (personnel_id, daily_meal_id) makes concurrent calls for the same meal
+     * converge on a single row. A delivered reservation is left alone. A reservation without a cost share
+     * gets one, and one whose dish price changed has its cost share recomputed.
+     *
+     * @param keepStatus whether an existing reservation keeps its status instead of taking {@code status};
+     *                   a cancelled or expired one takes {@code status} regardless, so reserving again revives it
+     * @return the id of the inserted or updated reservation, or empty when the existing one is delivered
+     */
+    @Query(value = """
+            with upserted as (
+                insert into reservation (personnel_id, daily_meal_id, daily_meal_dish_id, reservation_status, reservation_time,
+                                         created_by, created_at, last_modified_by, last_modified_at)
+                values (:personnelId, :dailyMealId, :dailyMealDishId, :status, :reservationTime,
+                        :username, :now, :username, :now)
+                on conflict (personnel_id, daily_meal_id) do update
+                set daily_meal_dish_id = excluded.daily_meal_dish_id,
+                    reservation_status = case when :keepStatus and reservation.reservation_status not in ('CANCELLED', 'EXPIRED')
+                                              then reservation.reservation_status
+                                              else excluded.reservation_status end,
+                    last_modified_by = excluded.last_modified_by,
+                    last_modified_at = excluded.last_modified_at
+                where reservation.reservation_status <> 'DELIVERED'
+                returning id
+            ), cost_share as (
+                insert into cost_shares (reservation_id, quantity, total_cost, employee_portion, employer_portion)
+                select id, 1, :totalCost, :employeePortion, :employerPortion from upserted
+                on conflict (reservation_id) do update
+                set total_cost = excluded.total_cost,
+                    employee_portion = excluded.employee_portion,
+                    employer_portion = excluded.employer_portion
+                where cost_shares.total_cost is distinct from excluded.total_cost
+            )
+            select id from upserted""", nativeQuery = true)
+    Optional<Long> upsertByPersonnelAndDailyMeal(@Param("personnelId") Long personnelId,
+                                                 @Param("dailyMealId") Long dailyMealId,
+                                                 @Param("dailyMealDishId") Long dailyMealDishId,
+                                                 @Param("status") String status,
+                                                 @Param("keepStatus") boolean keepStatus,
+                                                 @Param("reservationTime") LocalDateTime reservationTime,
+                                                 @Param("username") String username,
+                                                 @Param("now") Instant now,
+                                                 @Param("totalCost") BigDecimal totalCost,
+                                                 @Param("employeePortion") BigDecimal employeePortion,
+                                                 @Param("employerPortion") BigDecimal employerPortion);
+
+    /**
+     * Inserts many reservations, each with its cost share, in one statement. The arrays are read position by
+     * position; an employer portion is what the employee portion leaves of the total cost. A meal its personnel
+     * already holds, for example one reserved concurrently, is skipped rather than failing the statement.
+     *
+     * @return the ids of the inserted reservations
+     */
+    @Query(value = """
+            with inserted as (
+                insert into reservation (personnel_id, daily_meal_id, daily_meal_dish_id, reservation_status, reservation_time,
+                                         created_by, created_at, last_modified_by, last_modified_at)
+                select n.personnel_id, n.daily_meal_id, n.daily_meal_dish_id, n.status, :reservationTime,
+                       :username, :now, :username, :now
+                from unnest(cast(:personnelIds as bigint[]), cast(:dailyMealIds as bigint[]),
+                            cast(:dailyMealDishIds as bigint[]), cast(:statuses as varchar[]))
+                     as n(personnel_id, daily_meal_id, daily_meal_dish_id, status)
+                on conflict (personnel_id, daily_meal_id) do nothing
+                returning id, personnel_id, daily_meal_id
+            ), cost_share as (
+                insert into cost_shares (reservation_id, quantity, total_cost, employee_portion, employer_portion)
+                select i.id, 1, c.total_cost, c.employee_portion, c.total_cost - c.employee_portion
+                from inserted i
+                join unnest(cast(:personnelIds as bigint[]), cast(:dailyMealIds as bigint[]),
+                            cast(:totalCosts as numeric[]), cast(:employeePortions as numeric[]))
+                     as c(personnel_id, daily_meal_id, total_cost, employee_portion)
+                  on c.personnel_id = i.personnel_id and c.daily_meal_id = i.daily_meal_id
+            )
+            select id from inserted""", nativeQuery = true)
+    List<Long> insertSkippingTakenMeals(@Param("personnelIds") Long[] personnelIds,
+                                        @Param("dailyMealIds") Long[] dailyMealIds,
+                                        @Param("dailyMealDishIds") Long[] dailyMealDishIds,
+                                        @Param("statuses") String[] statuses,
+                                        @Param("totalCosts") BigDecimal[] totalCosts,
+                                        @Param("employeePortions") BigDecimal[] employeePortions,
+                                        @Param("reservationTime") LocalDateTime reservationTime,
+                                        @Param("username") String username,
+                                        @Param("now") Instant now);
+
+    /**
+     * The serving list of a day with everything {@code DailyPersonnelReservationListMapper} reads, in one query.
+     */
+    @Query("""
+            select r from Reservation r
+            join fetch r.personnel
+            join fetch r.dailyMeal m
+            left join fetch r.dailyMealDish d
+            left join fetch d.dish
+            left join fetch r.costShare
+            where m.date = :date""")
+    List<Reservation> findServingListByDate(@Param("date") LocalDate date);
+
+    /**
+     * The serving-list entry of one employee on a day, found by personnel code or personnel id.
+     */
+    @Query("""
+            select r from Reservation r
+            join fetch r.personnel p
+            join fetch r.dailyMeal m
+            left join fetch r.dailyMealDish d
+            left join fetch d.dish
+            left join fetch r.costShare
+            where m.date = :date and (p.persCode = :persCode or p.id = :personnelId)""")
+    List<Reservation> findServingListByDateAndPersonnel(@Param("date") LocalDate date,
+                                                        @Param("persCode") String persCode,
+                                                        @Param("personnelId") Long personnelId);
+
+    /**
+     * The reservations of a day summarized per status, one row for each status present.
+     */
+    @Query("""
+            select new com.mapnaom.foodapp.dtos.DailyReservationsFingerprintDto(
+                r.reservationStatus, count(r), coalesce(sum(r.id), 0), coalesce(sum(dish.id), 0))
+            from Reservation r
+            left join r.dailyMealDish d
+            left join d.dish dish
+            where r.dailyMeal.date = :date
+            group by r.reservationStatus""")
+    List<DailyReservationsFingerprintDto> fingerprintByDate(@Param("date") LocalDate date);
+
+    /**
+     * Reservations a batch upsert may update or collide with: those named by id, and any held by one
+     * of the given personnel on one of the given daily meals, where a reservation named by id may
+     * supply either the personnel or the daily meal it keeps.
+     */
+    @Query("""
+            select r from Reservation r
+            join fetch r.personnel
+            left join fetch r.costShare
+            where r.id in :ids
+               or (r.personnel.id in :personnelIds and r.dailyMeal.id in :dailyMealIds)
+               or (r.personnel.id in :personnelIds
+                   and r.dailyMeal.id in (select o.dailyMeal.id from Reservation o where o.id in :ids))
+               or (r.personnel.id in (select o.personnel.id from Reservation o where o.id in :ids)
+                   and r.dailyMeal.id in :dailyMealIds)""")
+    List<Reservation> findForBatchUpsert(@Param("ids") Collection<Long> ids,
+                                         @Param("personnelIds") Collection<Long> personnelIds,
+                                         @Param("dailyMealIds") Collection<Long> dailyMealIds);
 }
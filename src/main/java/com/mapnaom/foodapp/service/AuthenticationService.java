@@ -6,5 +6,7 @@ import com.mapnaom.foodapp.payload.response.AuthenticationResponse;
 
 public interface AuthenticationService {
     AuthenticationResponse register(RegisterRequest request);
+    AuthenticationResponse register(RegisterRequest request, String deviceId, String deviceName);
     AuthenticationResponse authenticate(AuthenticationRequest request);
+    AuthenticationResponse authenticate(AuthenticationRequest request, String deviceId, String deviceName);
 }
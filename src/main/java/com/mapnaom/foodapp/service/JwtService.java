@@ -5,13 +5,32 @@ import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseCookie;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.Optional;
+
 public interface JwtService {
+    /**
+     * Verifies the signature and expiry of {@code token} exactly once and returns its claims.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    VerifiedToken verifyToken(String token);
+
+    /**
+     * Like {@link #verifyToken(String)}, but reports malformed, forged or expired tokens as an empty
+     * result (counted in the {@code jwt.rejected} metric) instead of throwing.
+     */
+    Optional<VerifiedToken> tryVerifyToken(String token);
+
     String extractUserName(String token);
 
     String generateToken(UserDetails userDetails);
 
     boolean isTokenValid(String token, UserDetails userDetails);
     ResponseCookie generateJwtCookie(String jwt);
+    /**
+     * Bearer token from the Authorization header, falling back to the JWT cookie.
+     */
+    String getJwtFromRequest(HttpServletRequest request);
     String getJwtFromCookies(HttpServletRequest request);
     ResponseCookie getCleanJwtCookie();
 
@@ -0,0 +1,15 @@
+package com.mapnaom.foodapp.service;
+
+public interface LoginThrottleService {
+    /**
+     * Takes one token from the client-address bucket and checks that the username bucket is not empty.
+     *
+     * @throws com.mapnaom.foodapp.exceptions.LoginThrottledException if either bucket is empty
+     */
+    void acquire(String username, String clientAddress);
+
+    /**
+     * Takes one token from the username bucket after a wrong password or unknown username.
+     */
+    void loginFailed(String username);
+}
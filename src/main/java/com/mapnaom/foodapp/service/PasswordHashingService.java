@@ -0,0 +1,12 @@
+package com.mapnaom.foodapp.service;
+
+/**
+ * Runs password hashing off the request threads on a bounded pool.
+ * Both methods throw {@link com.mapnaom.foodapp.exceptions.LoginThrottledException}
+ * instead of queueing when the pool is saturated.
+ */
+public interface PasswordHashingService {
+    boolean matches(CharSequence rawPassword, String encodedPassword);
+
+    String encode(CharSequence rawPassword);
+}
@@ -1,21 +1,30 @@
 package com.mapnaom.foodapp.service;
 
+import com.mapnaom.foodapp.dtos.UserSessionDto;
 import com.mapnaom.foodapp.entities.RefreshToken;
 import com.mapnaom.foodapp.payload.request.RefreshTokenRequest;
 import com.mapnaom.foodapp.payload.response.RefreshTokenResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseCookie;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface RefreshTokenService {
 
     RefreshToken createRefreshToken(Long userId);
+    RefreshToken createRefreshToken(Long userId, String deviceId, String deviceName);
     RefreshToken verifyExpiration(RefreshToken token);
     Optional<RefreshToken> findByToken(String token);
     RefreshTokenResponse generateNewToken(RefreshTokenRequest request);
     ResponseCookie generateRefreshTokenCookie(String token);
     String getRefreshTokenFromCookies(HttpServletRequest request);
     void deleteByToken(String token);
+    void deleteAllSessionsByToken(String token);
+    void revokeAllForUser(Long userId);
+    void deleteAllSessionsForUser(Long userId);
+    List<UserSessionDto> findActiveSessions(Long userId);
+    String getDeviceIdFromCookies(HttpServletRequest request);
+    ResponseCookie generateDeviceIdCookie(String deviceId);
     ResponseCookie getCleanRefreshTokenCookie();
 }
@@ -0,0 +1,23 @@
+package com.mapnaom.foodapp.service;
+
+public interface TokenRevocationService {
+    /**
+     * Invalidates every access token issued to the user up to now, e.g. after a role change or deletion.
+     */
+    void revokeAllForUser(Long userId);
+
+    /**
+     * Denies a single access token until it expires, e.g. on logout. Invalid or expired tokens are ignored.
+     */
+    void revokeToken(String token);
+
+    /**
+     * Applies {@link #revokeAllForUser(Long)} to the owner of the given access token, if it is still valid.
+     */
+    void revokeAllForTokenOwner(String token);
+
+    /**
+     * Answers from memory only; returns {@code false} when the revocation check is disabled.
+     */
+    boolean isRevoked(VerifiedToken token);
+}
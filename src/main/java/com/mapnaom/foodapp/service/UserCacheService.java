@@ -0,0 +1,16 @@
+package com.mapnaom.foodapp.service;
+
+import com.mapnaom.foodapp.entities.User;
+
+import java.util.Optional;
+
+public interface UserCacheService {
+    Optional<User> findByUsername(String username);
+
+    Optional<User> findById(Long id);
+
+    /**
+     * Drops the user under both its username and id, again after the current transaction commits.
+     */
+    void evict(User user);
+}
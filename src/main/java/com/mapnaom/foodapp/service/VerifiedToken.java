@@ -0,0 +1,41 @@
+package com.mapnaom.foodapp.service;
+
+import com.mapnaom.foodapp.enums.Role;
+import lombok.Builder;
+import lombok.Value;
+
+import java.security.Principal;
+import java.time.Instant;
+
+/**
+ * Immutable result of a successful JWT signature and expiry check.
+ * Produced once per request by {@link JwtService#verifyToken(String)} so callers
+ * never have to re-parse the same token to read another claim.
+ * <p>
+ * Access tokens carry the user id and role, so this object doubles as the
+ * request principal; {@link #getRole()} is {@code null} for tokens minted
+ * before those claims existed.
+ */
+@Value
+@Builder(toBuilder = true)
+public class VerifiedToken implements Principal {
+    String tokenId;
+    String username;
+    Long userId;
+    Role role;
+    Instant issuedAt;
+    Instant expiresAt;
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && expiresAt.isBefore(now);
+    }
+
+    public boolean hasAuthorityClaims() {
+        return userId != null && role != null;
+    }
+}
@@ -8,38 +8,52 @@ import com.mapnaom.foodapp.payload.request.RegisterRequest;
 import com.mapnaom.foodapp.payload.response.AuthenticationResponse;
 import com.mapnaom.foodapp.service.AuthenticationService;
 import com.mapnaom.foodapp.service.JwtService;
+import com.mapnaom.foodapp.service.PasswordHashingService;
 import com.mapnaom.foodapp.entities.User;
 import com.mapnaom.foodapp.repository.UserRepository;
 import com.mapnaom.foodapp.service.RefreshTokenService;
+import com.mapnaom.foodapp.service.UserCacheService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-
-
-@Service @Transactional
+/**
+ * Password hashing waits for a slot and then burns CPU for tens of milliseconds, so it runs outside any
+ * transaction; only the writes that follow it hold a database connection.
+ */
+@Service
 @RequiredArgsConstructor
 public class AuthenticationServiceImpl implements AuthenticationService {
 
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtService jwtService;
     private final UserRepository userRepository;
     private final RefreshTokenService refreshTokenService;
+    private final UserCacheService userCacheService;
+    private final TransactionTemplate transactionTemplate;
     @Override
     public AuthenticationResponse register(RegisterRequest request) {
-        var user = User.builder()
-                .firstname(request.getFirstname())
-                .lastname(request.getLastname())
-                .email(request.getEmail())
-                .username(request.getUsername())
-                .password(passwordEncoder.encode(request.getPassword()))
-                .role(request.getRole())
-                .build();
-        user = userRepository.save(user);
+        return register(request, null, null);
+    }
+
+    @Override
+    public AuthenticationResponse register(RegisterRequest request, String deviceId, String deviceName) {
+        String encodedPassword = passwordHashingService.encode(request.getPassword());
+        var user = transactionTemplate.execute(status -> {
+            var saved = userRepository.save(User.builder()
+                    .firstname(request.getFirstname())
+                    .lastname(request.getLastname())
+                    .email(request.getEmail())
+                    .username(request.getUsername())
+                    .password(encodedPassword)
+                    .role(request.getRole())
+                    .build());
+            userCacheService.evict(saved);
+            return saved;
+        });
         var jwt = jwtService.generateToken(user);
-        var refreshToken = refreshTokenService.createRefreshToken(user.getId());
+        var refreshToken = refreshTokenService.createRefreshToken(user.getId(), deviceId, deviceName);
 
         var roles = user.getRole().getAuthorities()
                 .stream()
@@ -59,10 +73,15 @@ public class AuthenticationServiceImpl implements AuthenticationService {
 
     @Override
     public AuthenticationResponse authenticate(AuthenticationRequest request) {
-        var user = userRepository.findByUsername(request.getUsername())
+        return authenticate(request, null, null);
+    }
+
+    @Override
+    public AuthenticationResponse authenticate(AuthenticationRequest request, String deviceId, String deviceName) {
+        var user = userCacheService.findByUsername(request.getUsername())
                 .orElseThrow(() -> new InvalidUsernameOrPasswordException("Invalid username or password."));
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHashingService.matches(request.getPassword(), user.getPassword())) {
             throw new InvalidUsernameOrPasswordException("Invalid username or password.");
         }
 
@@ -76,7 +95,7 @@ public class AuthenticationServiceImpl implements AuthenticationService {
                 .toList();
 
         var jwt = jwtService.generateToken(user);
-        var refreshToken = refreshTokenService.createRefreshToken(user.getId());
+        var refreshToken = refreshTokenService.createRefreshToken(user.getId(), deviceId, deviceName);
         var expiresIn = jwtService.getExpirationTime(user); // Assuming JwtService has a method to calculate expiration time
 
         return AuthenticationResponse.builder()
@@ -1,29 +1,54 @@
 package com.mapnaom.foodapp.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.mapnaom.foodapp.entities.User;
+import com.mapnaom.foodapp.enums.Role;
 import com.mapnaom.foodapp.service.JwtService;
+import com.mapnaom.foodapp.service.VerifiedToken;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseCookie;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.WebUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.Optional;
+import java.util.UUID;
 
 @Service
+@RequiredArgsConstructor
 public class JwtServiceImpl implements JwtService {
 
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_ROLE = "role";
+
     @Value("${application.security.jwt.secret-key}")
     private String secretKey;
 
@@ -33,29 +58,141 @@ public class JwtServiceImpl implements JwtService {
     private long refreshExpiration;
     @Value("${application.security.jwt.cookie-name}")
     private String jwtCookieName;
+    @Value("${application.security.jwt.verified-cache.maximum-size:10000}")
+    private long verifiedCacheMaximumSize;
+    @Value("${application.security.jwt.rejected-cache.maximum-size:10000}")
+    private long rejectedCacheMaximumSize;
+
+    private final MeterRegistry meterRegistry;
+
+    // Both are immutable and thread-safe, so they are built once instead of per parse.
+    private Key signingKey;
+    private JwtParser jwtParser;
+
+    // SHA-256 digest of the compact token -> its verified claims, kept no longer than the token's "exp".
+    private Cache<String, VerifiedToken> verifiedTokens;
+    // Digest -> rejection counter, so a stale cookie resent on every request is refused without re-parsing.
+    private Cache<String, Counter> rejectedTokens;
+    private Counter malformedTokens;
+    private Counter expiredTokens;
+    private Counter forgedTokens;
+
+    @PostConstruct
+    void initSigningKey() {
+        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+        this.signingKey = Keys.hmacShaKeyFor(keyBytes);
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaximumSize)
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.verified");
+        this.rejectedTokens = Caffeine.newBuilder()
+                .maximumSize(rejectedCacheMaximumSize)
+                .expireAfterWrite(Duration.ofMillis(jwtExpiration))
+                .build();
+        this.malformedTokens = meterRegistry.counter("jwt.rejected", "reason", "malformed");
+        this.expiredTokens = meterRegistry.counter("jwt.rejected", "reason", "expired");
+        this.forgedTokens = meterRegistry.counter("jwt.rejected", "reason", "signature");
+    }
+
+    @Override
+    public VerifiedToken verifyToken(String token) {
+        // Invalid tokens make parseAndVerify throw, so only verified results are ever cached.
+        VerifiedToken verified = verifiedTokens.get(digest(token), key -> parseAndVerify(token));
+        if (verified.isExpired(Instant.now())) {
+            // Expiry is enforced lazily by the cache; never hand out a stale entry.
+            return parseAndVerify(token);
+        }
+        return verified;
+    }
+
+    @Override
+    public Optional<VerifiedToken> tryVerifyToken(String token) {
+        if (!looksLikeJws(token)) {
+            malformedTokens.increment();
+            return Optional.empty();
+        }
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null && !cached.isExpired(Instant.now())) {
+            return Optional.of(cached);
+        }
+        Counter rejectedBefore = rejectedTokens.getIfPresent(digest);
+        if (rejectedBefore != null) {
+            rejectedBefore.increment();
+            return Optional.empty();
+        }
+        try {
+            VerifiedToken verified = parseAndVerify(token);
+            verifiedTokens.put(digest, verified);
+            return Optional.of(verified);
+        } catch (ExpiredJwtException e) {
+            return reject(digest, expiredTokens);
+        } catch (SignatureException e) {
+            return reject(digest, forgedTokens);
+        } catch (JwtException | IllegalArgumentException e) {
+            return reject(digest, malformedTokens);
+        }
+    }
+
+    private Optional<VerifiedToken> reject(String digest, Counter reason) {
+        reason.increment();
+        rejectedTokens.put(digest, reason);
+        return Optional.empty();
+    }
+
+    // Compact JWS is exactly three non-empty Base64url segments; anything else is refused before parsing.
+    static boolean looksLikeJws(String token) {
+        if (token == null || token.isEmpty() || token.length() > 8192) {
+            return false;
+        }
+        int first = token.indexOf('.');
+        int second = first < 0 ? -1 : token.indexOf('.', first + 1);
+        return first > 0 && second > first + 1 && second < token.length() - 1
+                && token.indexOf('.', second + 1) < 0;
+    }
+
+    private VerifiedToken parseAndVerify(String token) {
+        Claims claims = extractAllClaims(token);
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        String role = claims.get(CLAIM_ROLE, String.class);
+        return VerifiedToken.builder()
+                .tokenId(claims.getId())
+                .username(claims.getSubject())
+                .userId(userId != null ? userId.longValue() : null)
+                .role(role != null ? Role.valueOf(role) : null)
+                .issuedAt(claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null)
+                .expiresAt(claims.getExpiration() != null ? claims.getExpiration().toInstant() : null)
+                .build();
+    }
 
     @Override
     public String extractUserName(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verifyToken(token).getUsername();
     }
 
     @Override
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof User user && user.getRole() != null) {
+            // Lets JwtRequestFilter rebuild the principal without loading the user.
+            claims.put(CLAIM_USER_ID, user.getId());
+            // Authorities follow from the role, so the privileges themselves are not repeated in the token.
+            claims.put(CLAIM_ROLE, user.getRole().name());
+        }
+        return generateToken(claims, userDetails);
     }
 
     @Override
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String userName = extractUserName(token);
-        return (userName.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        final VerifiedToken verified = verifyToken(token);
+        return verified.getUsername().equals(userDetails.getUsername()) && !verified.isExpired(Instant.now());
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
     private String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
         return buildToken(extraClaims, userDetails,jwtExpiration);
     }
@@ -71,6 +208,15 @@ public class JwtServiceImpl implements JwtService {
                 .build();
     }
 
+    @Override
+    public String getJwtFromRequest(HttpServletRequest request) {
+        final String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+        return getJwtFromCookies(request);
+    }
+
     @Override
     public String getJwtFromCookies(HttpServletRequest request) {
         Cookie cookie = WebUtils.getCookie(request, jwtCookieName);
@@ -103,26 +249,50 @@ public class JwtServiceImpl implements JwtService {
         return Jwts
                 .builder()
                 .setClaims(extraClaims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolvers) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolvers.apply(claims);
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
+
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
+        return jwtParser
                 .parseClaimsJws(token)
                 .getBody();
     }
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+
+    private final class UntilTokenExpiry implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            return remainingNanos(value);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return remainingNanos(value);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        private long remainingNanos(VerifiedToken value) {
+            if (value.getExpiresAt() == null) {
+                return Duration.ofMillis(jwtExpiration).toNanos();
+            }
+            return Math.max(0, Duration.between(Instant.now(), value.getExpiresAt()).toNanos());
+        }
     }
 }
@@ -0,0 +1,93 @@
+package com.mapnaom.foodapp.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mapnaom.foodapp.exceptions.LoginThrottledException;
+import com.mapnaom.foodapp.service.LoginThrottleService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * In-memory token buckets per username and per client address. Buckets live in a bounded
+ * cache and disappear after a period of inactivity, so memory stays flat under a spray attack.
+ * <p>
+ * Every attempt draws from its client's bucket, sized for a whole office logging in through one
+ * proxy or NAT address at shift start. A username's bucket is drawn from only by failed attempts,
+ * so correct logins never lock out an account and guessing stays slow.
+ */
+@Service
+@RequiredArgsConstructor
+public class LoginThrottleServiceImpl implements LoginThrottleService {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.security.login-throttle.enabled:true}")
+    private boolean enabled;
+    @Value("${application.security.login-throttle.username.capacity:5}")
+    private int usernameCapacity;
+    @Value("${application.security.login-throttle.username.refill-period:12s}")
+    private Duration usernameRefillPeriod;
+    @Value("${application.security.login-throttle.client.capacity:300}")
+    private int clientCapacity;
+    @Value("${application.security.login-throttle.client.refill-period:100ms}")
+    private Duration clientRefillPeriod;
+    @Value("${application.security.login-throttle.maximum-tracked-keys:100000}")
+    private long maximumTrackedKeys;
+
+    private Cache<String, TokenBucket> usernameBuckets;
+    private Cache<String, TokenBucket> clientBuckets;
+    private Counter usernameRejections;
+    private Counter clientRejections;
+
+    @PostConstruct
+    void initBuckets() {
+        this.usernameBuckets = Caffeine.newBuilder()
+                .maximumSize(maximumTrackedKeys)
+                .expireAfterAccess(usernameRefillPeriod.multipliedBy(usernameCapacity))
+                .build();
+        this.clientBuckets = Caffeine.newBuilder()
+                .maximumSize(maximumTrackedKeys)
+                .expireAfterAccess(clientRefillPeriod.multipliedBy(clientCapacity))
+                .build();
+        this.usernameRejections = Counter.builder("auth.login.rejected")
+                .tag("reason", "username_rate")
+                .register(meterRegistry);
+        this.clientRejections = Counter.builder("auth.login.rejected")
+                .tag("reason", "client_rate")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void acquire(String username, String clientAddress) {
+        if (!enabled) {
+            return;
+        }
+        if (clientAddress != null && !clientBuckets
+                .get(clientAddress, key -> new TokenBucket(clientCapacity, clientRefillPeriod))
+                .tryConsume()) {
+            clientRejections.increment();
+            throw new LoginThrottledException("Too many login attempts from this address, please retry later.");
+        }
+        TokenBucket usernameBucket = username == null ? null : usernameBuckets.getIfPresent(username.toLowerCase());
+        if (usernameBucket != null && !usernameBucket.hasToken()) {
+            usernameRejections.increment();
+            throw new LoginThrottledException("Too many login attempts for this user, please retry later.");
+        }
+    }
+
+    @Override
+    public void loginFailed(String username) {
+        if (!enabled || username == null) {
+            return;
+        }
+        usernameBuckets
+                .get(username.toLowerCase(), key -> new TokenBucket(usernameCapacity, usernameRefillPeriod))
+                .tryConsume();
+    }
+}
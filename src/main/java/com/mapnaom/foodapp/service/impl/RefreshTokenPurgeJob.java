@@ -0,0 +1,84 @@
+package com.mapnaom.foodapp.service.impl;
+
+import com.mapnaom.foodapp.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Periodically removes expired and revoked refresh tokens in bounded, set-based batches,
+ * pausing between batches so the purge never holds long locks on {@code refresh_token}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenPurgeJob {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.security.jwt.refresh-token.purge.enabled:true}")
+    private boolean enabled;
+    @Value("${application.security.jwt.refresh-token.purge.batch-size:1000}")
+    private int batchSize;
+    @Value("${application.security.jwt.refresh-token.purge.max-batches-per-run:100}")
+    private int maxBatchesPerRun;
+    @Value("${application.security.jwt.refresh-token.purge.pause-between-batches:200ms}")
+    private Duration pauseBetweenBatches;
+
+    private Counter purgedRows;
+    private Timer purgeTimer;
+
+    @PostConstruct
+    void initMetrics() {
+        this.purgedRows = Counter.builder("refresh_tokens.purged")
+                .description("Expired or revoked refresh tokens deleted by the purge job")
+                .register(meterRegistry);
+        this.purgeTimer = Timer.builder("refresh_tokens.purge")
+                .description("Time spent per refresh-token purge run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${application.security.jwt.refresh-token.purge.interval:PT1H}",
+            initialDelayString = "${application.security.jwt.refresh-token.purge.initial-delay:PT5M}")
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long total = purgeInBatches();
+        sample.stop(purgeTimer);
+        if (total > 0) {
+            log.info("Purged {} expired or revoked refresh tokens", total);
+        }
+    }
+
+    private long purgeInBatches() {
+        Instant now = Instant.now();
+        long total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int deleted = refreshTokenRepository.deleteExpiredOrRevokedBatch(now, batchSize);
+            total += deleted;
+            purgedRows.increment(deleted);
+            if (deleted < batchSize) {
+                break;
+            }
+            try {
+                Thread.sleep(pauseBetweenBatches.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return total;
+    }
+}
@@ -1,5 +1,6 @@
 package com.mapnaom.foodapp.service.impl;
 
+import com.mapnaom.foodapp.dtos.UserSessionDto;
 import com.mapnaom.foodapp.entities.RefreshToken;
 import com.mapnaom.foodapp.entities.User;
 import com.mapnaom.foodapp.enums.TokenType;
@@ -7,9 +8,9 @@ import com.mapnaom.foodapp.exception.TokenException;
 import com.mapnaom.foodapp.payload.request.RefreshTokenRequest;
 import com.mapnaom.foodapp.payload.response.RefreshTokenResponse;
 import com.mapnaom.foodapp.repository.RefreshTokenRepository;
-import com.mapnaom.foodapp.repository.UserRepository;
 import com.mapnaom.foodapp.service.JwtService;
 import com.mapnaom.foodapp.service.RefreshTokenService;
+import com.mapnaom.foodapp.service.UserCacheService;
 
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
@@ -18,10 +19,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseCookie;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.util.WebUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.time.Instant;
 import java.util.Base64;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -30,24 +37,58 @@ import java.util.UUID;
 @Slf4j
 public class RefreshTokenServiceImpl implements RefreshTokenService {
 
-    private final UserRepository userRepository;
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    private static final int TOKEN_BYTES = 32;
+
     private final RefreshTokenRepository refreshTokenRepository;
     private final JwtService jwtService;
+    private final UserCacheService userCacheService;
 
     @Value("${application.security.jwt.refresh-token.expiration}")
     private long refreshExpiration;
     @Value("${application.security.jwt.refresh-token.cookie-name}")
     private String refreshTokenName;
+    @Value("${application.security.jwt.refresh-token.rotation.enabled:false}")
+    private boolean rotationEnabled;
+    @Value("${application.security.sessions.max-per-user:10}")
+    private int maxSessionsPerUser;
+    @Value("${application.security.sessions.device-cookie-name:device-id}")
+    private String deviceCookieName;
+
     @Override
     public RefreshToken createRefreshToken(Long userId) {
-        User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
+        return createRefreshToken(userId, null, null);
+    }
+
+    @Override
+    @Transactional
+    public RefreshToken createRefreshToken(Long userId, String deviceId, String deviceName) {
+        User user = userCacheService.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
+        String device = deviceId != null && !deviceId.isBlank() ? deviceId : UUID.randomUUID().toString();
+        // A repeat login from the same device replaces that device's session instead of adding one.
+        refreshTokenRepository.deleteByUserIdAndDeviceId(userId, device);
+        RefreshToken refreshToken = issue(user, UUID.randomUUID(), device, deviceName);
+        refreshTokenRepository.deleteSessionsBeyondLimit(userId, maxSessionsPerUser);
+        return refreshToken;
+    }
+
+    private RefreshToken issue(User user, UUID familyId, String deviceId, String deviceName) {
+        byte[] random = new byte[TOKEN_BYTES];
+        SECURE_RANDOM.nextBytes(random);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(random);
         RefreshToken refreshToken = RefreshToken.builder()
                 .revoked(false)
                 .user(user)
-                .token(Base64.getEncoder().encodeToString(UUID.randomUUID().toString().getBytes()))
+                .tokenHash(hash(rawToken))
+                .familyId(familyId)
+                .deviceId(deviceId)
+                .deviceName(deviceName != null && deviceName.length() > 255 ? deviceName.substring(0, 255) : deviceName)
+                .issuedAt(Instant.now())
                 .expiryDate(Instant.now().plusMillis(refreshExpiration))
                 .build();
-        return refreshTokenRepository.save(refreshToken);
+        RefreshToken saved = refreshTokenRepository.save(refreshToken);
+        saved.setToken(rawToken);
+        return saved;
     }
 
     @Override
@@ -65,20 +106,45 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
 
     @Override
     public Optional<RefreshToken> findByToken(String token) {
-        return refreshTokenRepository.findByToken(token);
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        return refreshTokenRepository.findByTokenHash(hash(token))
+                .map(refreshToken -> {
+                    refreshToken.setToken(token);
+                    return refreshToken;
+                });
     }
 
     @Override
+    @Transactional(noRollbackFor = TokenException.class)
     public RefreshTokenResponse generateNewToken(RefreshTokenRequest request) {
-        User user = refreshTokenRepository.findByToken(request.getRefreshToken())
+        RefreshToken refreshToken = findByToken(request.getRefreshToken())
                 .map(this::verifyExpiration)
-                .map(RefreshToken::getUser)
                 .orElseThrow(() -> new TokenException(request.getRefreshToken(),"Refresh token does not exist"));
+        if (refreshToken.isRevoked()) {
+            throw new TokenException(request.getRefreshToken(), "Refresh token was revoked");
+        }
+        // The user association is lazy; reading its id does not initialize it.
+        User user = userCacheService.findById(refreshToken.getUser().getId())
+                .orElseThrow(() -> new TokenException(request.getRefreshToken(),"User of refresh token does not exist"));
+
+        String nextRefreshToken = request.getRefreshToken();
+        if (rotationEnabled) {
+            if (refreshTokenRepository.markRotated(refreshToken.getId()) == 0) {
+                // Someone already exchanged this token, so it has leaked: end the whole login.
+                int revoked = refreshTokenRepository.revokeFamily(refreshToken.getFamilyId());
+                log.warn("Refresh token reuse detected for user {}; revoked {} tokens of its family", user.getId(), revoked);
+                throw new TokenException(request.getRefreshToken(), "Refresh token was already used");
+            }
+            nextRefreshToken = issue(user, refreshToken.getFamilyId(),
+                    refreshToken.getDeviceId(), refreshToken.getDeviceName()).getToken();
+        }
 
         String token = jwtService.generateToken(user);
         return RefreshTokenResponse.builder()
                 .accessToken(token)
-                .refreshToken(request.getRefreshToken())
+                .refreshToken(nextRefreshToken)
                 .tokenType(TokenType.BEARER.name())
                 .build();
     }
@@ -106,7 +172,53 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
 
     @Override
     public void deleteByToken(String token) {
-        refreshTokenRepository.findByToken(token).ifPresent(refreshTokenRepository::delete);
+        if (token == null || token.isEmpty()) {
+            return;
+        }
+        refreshTokenRepository.deleteSessionByTokenHash(hash(token));
+    }
+
+    @Override
+    public void deleteAllSessionsByToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return;
+        }
+        refreshTokenRepository.deleteAllSessionsByTokenHash(hash(token));
+    }
+
+    @Override
+    public void revokeAllForUser(Long userId) {
+        refreshTokenRepository.revokeAllByUserId(userId);
+    }
+
+    @Override
+    public void deleteAllSessionsForUser(Long userId) {
+        refreshTokenRepository.deleteAllByUserId(userId);
+    }
+
+    @Override
+    public List<UserSessionDto> findActiveSessions(Long userId) {
+        return refreshTokenRepository.findActiveSessions(userId, Instant.now());
+    }
+
+    @Override
+    public String getDeviceIdFromCookies(HttpServletRequest request) {
+        Cookie cookie = WebUtils.getCookie(request, deviceCookieName);
+        if (cookie != null && !cookie.getValue().isBlank() && cookie.getValue().length() <= 64) {
+            return cookie.getValue();
+        }
+        return UUID.randomUUID().toString();
+    }
+
+    @Override
+    public ResponseCookie generateDeviceIdCookie(String deviceId) {
+        return ResponseCookie.from(deviceCookieName, deviceId)
+                .path("/api/v1/auth")
+                .maxAge(365L * 24 * 60 * 60) // outlives any session on purpose
+                .httpOnly(true)
+                .secure(true)
+                .sameSite("Strict")
+                .build();
     }
 
     @Override
@@ -117,4 +229,12 @@ public class RefreshTokenServiceImpl implements RefreshTokenService {
                 .maxAge(0)
                 .build();
     }
+
+    private static byte[] hash(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 }
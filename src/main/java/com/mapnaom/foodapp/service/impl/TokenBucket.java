@@ -0,0 +1,53 @@
+package com.mapnaom.foodapp.service.impl;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket holding up to {@code capacity} tokens and regaining one per {@code refillPeriod}.
+ */
+final class TokenBucket {
+    private final int capacity;
+    private final long nanosPerToken;
+    private final LongSupplier nanoClock;
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(int capacity, Duration refillPeriod) {
+        this(capacity, refillPeriod, System::nanoTime);
+    }
+
+    TokenBucket(int capacity, Duration refillPeriod, LongSupplier nanoClock) {
+        this.capacity = capacity;
+        this.nanosPerToken = Math.max(1, refillPeriod.toNanos());
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.lastRefillNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Takes one token if there is one.
+     */
+    synchronized boolean tryConsume() {
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    /**
+     * @return whether a token is available, without taking it
+     */
+    synchronized boolean hasToken() {
+        refill();
+        return tokens >= 1;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (double) (now - lastRefillNanos) / nanosPerToken);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,162 @@
+package com.mapnaom.foodapp.service.impl;
+
+import com.mapnaom.foodapp.entities.RevokedAccessToken;
+import com.mapnaom.foodapp.repository.RevokedAccessTokenRepository;
+import com.mapnaom.foodapp.service.JwtService;
+import com.mapnaom.foodapp.service.TokenRevocationService;
+import com.mapnaom.foodapp.service.VerifiedToken;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Access-token deny-list consulted by {@code JwtRequestFilter} on every request.
+ * <p>
+ * Two maps are kept in memory: denied token ids ({@code jti}) and a per-user "not before" instant.
+ * A lookup is a plain map read, so checking a token never touches the database. Every entry
+ * is written through to {@code revoked_access_token}, reloaded at startup and periodically synced
+ * so revocations made on other instances are picked up. Entries only matter until the tokens
+ * they match expire, so memory is bounded by the revocations of one access-token lifetime.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationServiceImpl implements TokenRevocationService {
+
+    private final RevokedAccessTokenRepository revokedAccessTokenRepository;
+    private final JwtService jwtService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.security.jwt.revocation-check.enabled:false}")
+    private boolean enabled;
+
+    @Value("${application.security.jwt.expiration}")
+    private long jwtExpiration;
+
+    // jti -> expiry of that token
+    private final Map<String, Instant> deniedTokenIds = new ConcurrentHashMap<>();
+    // user id -> tokens issued before this instant are revoked
+    private final Map<Long, Instant> notBeforeByUserId = new ConcurrentHashMap<>();
+
+    private volatile Instant lastSync = Instant.EPOCH;
+
+    @PostConstruct
+    void loadDenyList() {
+        Instant now = Instant.now();
+        apply(revokedAccessTokenRepository.findByExpiresAtAfter(now));
+        lastSync = now;
+        Gauge.builder("jwt.revoked.entries", this, s -> s.deniedTokenIds.size() + s.notBeforeByUserId.size())
+                .description("Access-token revocations currently held in memory")
+                .register(meterRegistry);
+        log.info("Loaded {} revoked token ids and {} user revocations",
+                deniedTokenIds.size(), notBeforeByUserId.size());
+    }
+
+    @Override
+    public void revokeAllForUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        // "iat" only has second precision, so align the cut-off with it; a token issued within this
+        // second is revoked as well (see isRevoked).
+        Instant notBefore = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        notBeforeByUserId.merge(userId, notBefore, (a, b) -> a.isAfter(b) ? a : b);
+        revokedAccessTokenRepository.save(RevokedAccessToken.builder()
+                .userId(userId)
+                .notBefore(notBefore)
+                .expiresAt(notBefore.plusMillis(jwtExpiration))
+                .createdAt(Instant.now())
+                .build());
+        log.info("Revoked access tokens issued so far for user {}", userId);
+    }
+
+    @Override
+    public void revokeToken(String token) {
+        VerifiedToken verified = verifyQuietly(token);
+        if (verified == null || verified.getTokenId() == null || verified.getExpiresAt() == null) {
+            return;
+        }
+        deniedTokenIds.put(verified.getTokenId(), verified.getExpiresAt());
+        revokedAccessTokenRepository.save(RevokedAccessToken.builder()
+                .tokenId(verified.getTokenId())
+                .userId(verified.getUserId())
+                .expiresAt(verified.getExpiresAt())
+                .createdAt(Instant.now())
+                .build());
+    }
+
+    @Override
+    public void revokeAllForTokenOwner(String token) {
+        VerifiedToken verified = verifyQuietly(token);
+        if (verified != null) {
+            revokeAllForUser(verified.getUserId());
+        }
+    }
+
+    @Override
+    public boolean isRevoked(VerifiedToken token) {
+        if (!enabled) {
+            return false;
+        }
+        String tokenId = token.getTokenId();
+        if (tokenId != null && !deniedTokenIds.isEmpty() && deniedTokenIds.containsKey(tokenId)) {
+            return true;
+        }
+        if (token.getUserId() == null || notBeforeByUserId.isEmpty()) {
+            return false;
+        }
+        Instant notBefore = notBeforeByUserId.get(token.getUserId());
+        // Inclusive: a token stamped with the revocation's own second may have been issued just before it.
+        return notBefore != null && (token.getIssuedAt() == null || !token.getIssuedAt().isAfter(notBefore));
+    }
+
+    /**
+     * Drops entries whose tokens have expired and pulls in revocations written by other instances.
+     */
+    @Scheduled(fixedDelayString = "${application.security.jwt.revocation-check.sync-interval:PT30S}")
+    public void evictAndSync() {
+        Instant now = Instant.now();
+        deniedTokenIds.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+        notBeforeByUserId.values().removeIf(notBefore -> notBefore.plusMillis(jwtExpiration).isBefore(now));
+        // Overlap the window slightly; re-applying a row is harmless.
+        Instant since = lastSync.minusSeconds(5);
+        apply(revokedAccessTokenRepository.findByCreatedAtAfterAndExpiresAtAfter(since, now));
+        lastSync = now;
+        revokedAccessTokenRepository.deleteExpired(now);
+    }
+
+    private void apply(List<RevokedAccessToken> revocations) {
+        for (RevokedAccessToken revocation : revocations) {
+            if (revocation.getTokenId() != null) {
+                deniedTokenIds.put(revocation.getTokenId(), revocation.getExpiresAt());
+            } else if (revocation.getUserId() != null && revocation.getNotBefore() != null) {
+                notBeforeByUserId.merge(revocation.getUserId(), revocation.getNotBefore(),
+                        (a, b) -> a.isAfter(b) ? a : b);
+            }
+        }
+    }
+
+    private VerifiedToken verifyQuietly(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            return jwtService.verifyToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            // Already invalid or expired: there is nothing left to revoke.
+            return null;
+        }
+    }
+}
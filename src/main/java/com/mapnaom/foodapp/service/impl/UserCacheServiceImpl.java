@@ -0,0 +1,115 @@
+package com.mapnaom.foodapp.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mapnaom.foodapp.entities.User;
+import com.mapnaom.foodapp.repository.UserRepository;
+import com.mapnaom.foodapp.service.UserCacheService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Size-bounded, expiring cache of {@link User} rows in front of {@link UserRepository}.
+ * Writers that change a user must call {@link #evict(User)} so the next request sees the new role.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserCacheServiceImpl implements UserCacheService {
+
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.security.user-cache.maximum-size:10000}")
+    private long maximumSize;
+    @Value("${application.security.user-cache.expire-after-write:5m}")
+    private Duration expireAfterWrite;
+
+    private Cache<String, User> byUsername;
+    private Cache<Long, User> byId;
+
+    @PostConstruct
+    void initCaches() {
+        this.byUsername = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byUsername, "users.byUsername");
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "users.byId");
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        if (username == null) {
+            return Optional.empty();
+        }
+        // Misses are not cached, so a user registered a moment later is still found.
+        User user = byUsername.get(username, key -> userRepository.findByUsername(key)
+                .map(this::indexById)
+                .orElse(null));
+        return Optional.ofNullable(user);
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        User user = byId.get(id, key -> userRepository.findById(key)
+                .map(this::indexByUsername)
+                .orElse(null));
+        return Optional.ofNullable(user);
+    }
+
+    @Override
+    public void evict(User user) {
+        if (user == null) {
+            return;
+        }
+        invalidate(user.getUsername(), user.getId());
+        // A concurrent reader may re-cache the old row before we commit, so evict once more afterwards.
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            String username = user.getUsername();
+            Long id = user.getId();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(username, id);
+                }
+            });
+        }
+    }
+
+    private void invalidate(String username, Long id) {
+        if (username != null) {
+            byUsername.invalidate(username);
+        }
+        if (id != null) {
+            byId.invalidate(id);
+        }
+    }
+
+    private User indexById(User user) {
+        byId.put(user.getId(), user);
+        return user;
+    }
+
+    private User indexByUsername(User user) {
+        byUsername.put(user.getUsername(), user);
+        return user;
+    }
+}
@@ -19,23 +19,30 @@ import com.mapnaom.foodapp.repository.ReservationRepository;
 import com.mapnaom.foodapp.searchForms.DailyMealSearchForm;
 import com.mapnaom.foodapp.specifications.DailyMealSpecification;
 import com.mapnaom.foodapp.utils.ExcelUtil;
+import com.mapnaom.foodapp.utils.ImportOptions;
+import com.mapnaom.foodapp.utils.ImportProgress;
 import com.mapnaom.foodapp.utils.ImportResult;
+import com.mapnaom.foodapp.utils.ImportRowResult;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import org.springframework.web.multipart.MultipartFile;
-
 /**
  * Service layer for managing DailyMeal operations.
  */
@@ -48,7 +55,12 @@ public class DailyMealService {
     private final DailyMealMapper dailyMealMapper;
     private final DishRepository dishRepository;
     private final ReservationRepository reservationRepository;
+    private final ExcelUtil excelUtil;
     private final DailyMealListMapper dailyMealListMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.import.batch-size:500}")
+    private int importBatchSize;
 
     /**
      * Retrieves a DailyMeal by its ID.
@@ -290,119 +302,141 @@ public class DailyMealService {
                 .collect(Collectors.toList());
     }
 
-    public ImportResult importDailyMealsFromExcel(MultipartFile file) throws IOException {
-        ImportResult.ImportResultBuilder resultBuilder = ImportResult.builder();
-        List<String> errors = new ArrayList<>();
-        int successCount = 0;
-        int errorCount = 0;
+    /**
+     * Adds the dishes listed in an Excel file to the menu of each date, creating the daily meal
+     * when the date has none yet. Dishes already on a date's menu are left alone.
+     * <p>
+     * Rows are written as they are read, in chunks of {@code application.import.batch-size} rows,
+     * each in its own transaction, so a failing chunk does not roll back the ones already committed.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ImportResult importDailyMealsFromExcel(InputStream inputStream, String filename, ImportProgress progress)
+            throws IOException {
+        List<ImportRowResult> results = new ArrayList<>();
+        List<ImportRowResult> invalid = new ArrayList<>();
 
-        try {
-            // Process Excel file with default settings
-            List<DailyMealExcelDto> excelDtos = new ExcelUtil().processExcel(
-                    file,
-                    DailyMealExcelDto.class,
-                    0, // default sheet index
-                    0  // default header row index
-            );
+        // Only the (date, dish) pairs already seen are kept across chunks, to report repeated rows
+        DateConverter dateConverter = getDateConverter();
+        Map<LocalDate, Map<Long, Integer>> firstRowByDish = new HashMap<>();
+        Map<LocalDate, Map<Long, Integer>> chunk = new LinkedHashMap<>();
+        AtomicInteger chunkRows = new AtomicInteger();
 
-            // Filter valid DTOs
-            List<DailyMealExcelDto> validDtos = excelDtos.stream()
-                    .filter(dto -> dto.getDate() != null && !dto.getDate().isBlank() && dto.getDishId() != null)
-                    .toList();
+        // Rows are converted and their dates checked in parallel; invalid rows come back as row errors
+        try {
+            excelUtil.processExcel(inputStream, filename, DailyMealExcelDto.class, ImportOptions.builder().build(),
+                    this::validateExcelRow, (dto, rowNumber) -> {
+                        progress.rowRead();
+                        if (dto.getDate() == null || dto.getDate().isBlank() || dto.getDishId() == null) {
+                            ImportRowResult missing = ImportRowResult.invalid(rowNumber, "تاریخ و شناسه غذا الزامی است.");
+                            results.add(missing);
+                            progress.rowsDone(List.of(missing));
+                            return;
+                        }
+                        LocalDate mealDate = parseJalaliDate(dto.getDate(), dateConverter);
+                        Integer firstRow = firstRowByDish.computeIfAbsent(mealDate, date -> new HashMap<>())
+                                .putIfAbsent(dto.getDishId(), rowNumber);
+                        if (firstRow != null) {
+                            ImportRowResult duplicate = ImportRowResult.duplicate(rowNumber,
+                                    "تکرار ردیف %d در همین فایل.".formatted(firstRow));
+                            results.add(duplicate);
+                            progress.rowsDone(List.of(duplicate));
+                            return;
+                        }
 
-            // Convert Jalali dates to LocalDate and group by date
-            DateConverter dateConverter = getDateConverter();
-            Map<LocalDate, List<Long>> mealsByDate = new HashMap<>();
-
-            for (DailyMealExcelDto dto : validDtos) {
-                try {
-                    LocalDate gregorianDate = parseJalaliDate(dto.getDate(), dateConverter);
-                    mealsByDate.computeIfAbsent(gregorianDate, k -> new ArrayList<>())
-                            .add(dto.getDishId());
-                } catch (Exception e) {
-                    errors.add("Invalid date format: " + dto.getDate() + " - " + e.getMessage());
-                    errorCount++;
-                }
+                        chunk.computeIfAbsent(mealDate, date -> new LinkedHashMap<>()).put(dto.getDishId(), rowNumber);
+                        if (chunkRows.incrementAndGet() >= importBatchSize) {
+                            results.addAll(importMealChunk(chunk, progress));
+                            chunk.clear();
+                            chunkRows.set(0);
+                        }
+                    });
+        } catch (ExcelUtil.ExcelProcessingException e) {
+            if (!e.hasErrors()) {
+                throw new IllegalArgumentException("خطا در پردازش فایل اکسل: %s".formatted(e.getMessage()));
             }
+            e.getErrors().forEach(error -> invalid.add(ImportRowResult.invalid(error.getRowNumber(), error.getMessage())));
+        }
 
-            // Pre-fetch all dishes for validation
-            Set<Long> allDishIds = validDtos.stream()
-                    .map(DailyMealExcelDto::getDishId)
-                    .collect(Collectors.toSet());
+        progress.readFinished(results.size() + chunkRows.get() + invalid.size());
+        progress.rowsDone(invalid);
+        results.addAll(invalid);
+        if (!chunk.isEmpty()) {
+            results.addAll(importMealChunk(chunk, progress));
+        }
 
-            Map<Long, Dish> dishMap = dishRepository.findAllById(allDishIds).stream()
-                    .collect(Collectors.toMap(Dish::getId, Function.identity()));
-
-            // Process each date
-            for (Map.Entry<LocalDate, List<Long>> entry : mealsByDate.entrySet()) {
-                LocalDate mealDate = entry.getKey();
-                List<Long> dishIds = entry.getValue().stream().distinct().toList(); // remove duplicates
-
-                try {
-                    // Check if daily meal already exists
-                    List<DailyMeal> existingMeals = dailyMealRepository.findByDate(mealDate);
-                    DailyMeal dailyMeal;
-
-                    if (!existingMeals.isEmpty()) {
-                        // Update existing meal
-                        dailyMeal = existingMeals.get(0);
-                    } else {
-                        // Create new daily meal
-                        dailyMeal = DailyMeal.builder()
-                                .date(mealDate)
-                                .dailyMealDishes(new ArrayList<>())
-                                .build();
-                    }
-
-                    // Get existing dish IDs to avoid duplicates
-                    Set<Long> existingDishIds = dailyMeal.getDailyMealDishes().stream()
-                            .map(dmd -> dmd.getDish().getId())
-                            .collect(Collectors.toSet());
-
-                    // Add new dishes
-                    boolean hasNewDishes = false;
-                    for (Long dishId : dishIds) {
-                        if (!existingDishIds.contains(dishId)) {
-                            Dish dish = dishMap.get(dishId);
-                            if (dish != null) {
-                                DailyMealDish dailyMealDish = new DailyMealDish(dailyMeal, dish);
-                                dailyMeal.getDailyMealDishes().add(dailyMealDish);
-                                hasNewDishes = true;
-                            } else {
-                                errors.add("Dish not found with ID: " + dishId + " for date: " + mealDate);
-                            }
-                        }
-                    }
+        results.sort(Comparator.comparingInt(ImportRowResult::getRowNumber));
+        return ImportResult.fromRows(results);
+    }
 
-                    // Save only if there are changes
-                    if (hasNewDishes || existingMeals.isEmpty()) {
-                        dailyMealRepository.save(dailyMeal);
-                        successCount++;
-                    }
+    /**
+     * Saves one chunk of dishes grouped by date. A date split across chunks finds the daily meal
+     * an earlier chunk committed.
+     */
+    private List<ImportRowResult> importMealChunk(Map<LocalDate, Map<Long, Integer>> chunk, ImportProgress progress) {
+        List<ImportRowResult> results;
+        try {
+            results = transactionTemplate.execute(status -> saveMealChunk(chunk));
+        } catch (DataAccessException e) {
+            String message = "خطا در ذخیره‌سازی: %s".formatted(e.getMostSpecificCause().getMessage());
+            results = chunk.values().stream()
+                    .flatMap(dishRows -> dishRows.values().stream())
+                    .map(rowNumber -> ImportRowResult.failed(rowNumber, message))
+                    .toList();
+        }
+        progress.rowsDone(results);
+        return results;
+    }
 
-                } catch (Exception e) {
-                    errors.add("Error processing date " + mealDate + ": " + e.getMessage());
-                    errorCount++;
+    private List<ImportRowResult> saveMealChunk(Map<LocalDate, Map<Long, Integer>> chunk) {
+        Set<Long> dishIds = chunk.values().stream()
+                .flatMap(dishRows -> dishRows.keySet().stream())
+                .collect(Collectors.toSet());
+        Map<Long, Dish> dishMap = dishRepository.findAllById(dishIds).stream()
+                .collect(Collectors.toMap(Dish::getId, Function.identity()));
+
+        List<ImportRowResult> results = new ArrayList<>();
+        for (Map.Entry<LocalDate, Map<Long, Integer>> date : chunk.entrySet()) {
+            List<DailyMeal> existingMeals = dailyMealRepository.findByDate(date.getKey());
+            DailyMeal dailyMeal = existingMeals.isEmpty()
+                    ? DailyMeal.builder().date(date.getKey()).dailyMealDishes(new ArrayList<>()).build()
+                    : existingMeals.get(0);
+
+            Set<Long> existingDishIds = dailyMeal.getDailyMealDishes().stream()
+                    .map(dmd -> dmd.getDish().getId())
+                    .collect(Collectors.toSet());
+
+            List<Integer> addedRows = new ArrayList<>();
+            for (Map.Entry<Long, Integer> dishRow : date.getValue().entrySet()) {
+                Dish dish = dishMap.get(dishRow.getKey());
+                if (existingDishIds.contains(dishRow.getKey())) {
+                    results.add(ImportRowResult.unchanged(dishRow.getValue(), dailyMeal.getId()));
+                } else if (dish == null) {
+                    results.add(ImportRowResult.invalid(dishRow.getValue(),
+                            "غذایی با شناسه %d یافت نشد.".formatted(dishRow.getKey())));
+                } else {
+                    dailyMeal.getDailyMealDishes().add(new DailyMealDish(dailyMeal, dish));
+                    addedRows.add(dishRow.getValue());
                 }
             }
 
-        } catch (ExcelUtil.ExcelProcessingException e) {
-            errors.add("Excel processing failed: " + e.getMessage());
-            if (e.getErrors() != null) {
-                e.getErrors().forEach(error ->
-                        errors.add("Row " + error.getRowNumber() + ": " + error.getMessage())
-                );
+            if (!addedRows.isEmpty()) {
+                DailyMeal saved = dailyMealRepository.save(dailyMeal);
+                addedRows.forEach(rowNumber -> results.add(ImportRowResult.created(rowNumber, saved.getId())));
             }
-            errorCount++;
         }
+        return results;
+    }
 
-        return resultBuilder
-                .successCount(successCount)
-                .errorCount(errorCount)
-                .skippedCount(0) // no skipping logic in simplified version
-                .errors(errors)
-                .totalProcessed(successCount + errorCount)
-                .build();
+    /**
+     * Rejects rows whose Jalali date cannot be parsed. Rows without a date or dish are skipped later.
+     */
+    private void validateExcelRow(DailyMealExcelDto dto) {
+        if (dto.getDate() == null || dto.getDate().isBlank()) return;
+        try {
+            parseJalaliDate(dto.getDate(), getDateConverter());
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid date format: " + dto.getDate() + " - " + e.getMessage());
+        }
     }
 
     private LocalDate parseJalaliDate(String jalaliDateStr, DateConverter dateConverter) {
@@ -11,32 +11,60 @@ import com.mapnaom.foodapp.repository.DishRepository;
 import com.mapnaom.foodapp.searchForms.DishSearchForm;
 import com.mapnaom.foodapp.specifications.DishSpecification;
 import com.mapnaom.foodapp.utils.ExcelUtil;
+import com.mapnaom.foodapp.utils.ImportOptions;
+import com.mapnaom.foodapp.utils.ImportProgress;
+import com.mapnaom.foodapp.utils.ImportResult;
+import com.mapnaom.foodapp.utils.ImportRowResult;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
-
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.springframework.web.multipart.MultipartFile;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 @RequiredArgsConstructor
+@Slf4j
 public class DishService {
     private final DishRepository dishRepository;
     private final DishMapper dishMapper;
     private final ExcelUtil excelUtil;
     private final DailyMealDishRepository dailyMealDishRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.import.batch-size:500}")
+    private int importBatchSize;
+
+    private static final int NAME_PROBE_SIZE = 1000;
+    private static final Map<String, String> EXPORT_HEADERS = Map.of(
+            "id", "ID",
+            "name", "Name",
+            "price", "Price");
 
     public DishDto createDish(@NotNull DishDto dishDto) {
         // Check if a dish with the same name and price already exists
@@ -127,158 +155,167 @@ public class DishService {
     }
 
     /**
-     * Imports dishes from an Excel file
+     * Imports dishes from an Excel file.
+     * <p>
+     * Rows are written as they are read: each chunk of {@code application.import.batch-size} rows
+     * resolves its existing (name, price) pairs in one lookup and is committed on its own. Only the
+     * pairs already seen are kept across chunks, to catch duplicates within the file.
      *
-     * @param file The Excel file containing dish data
-     * @return List of imported dishes
+     * @param inputStream the Excel file containing dish data
+     * @param filename    the uploaded file name, which selects the Excel format
+     * @param progress    receives every row as it is read and every batch as it is committed
+     * @return the outcome of every row
      * @throws IllegalArgumentException if the file format is invalid
      */
-    public List<DishDto> importDishesFromExcel(MultipartFile file) {
-        if (file == null || file.isEmpty()) {
-            throw new IllegalArgumentException("فایل نمی‌تواند خالی باشد.");
-        }
-
-        String contentType = file.getContentType();
-        if (!"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet".equals(contentType) &&
-                !"application/vnd.ms-excel".equals(contentType)) {
-            throw new IllegalArgumentException("فقط فایل‌های اکسل (.xls یا .xlsx) پشتیبانی می‌شوند.");
-        }
-
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ImportResult importDishesFromExcel(InputStream inputStream, String filename, ImportProgress progress) {
+        List<ImportRowResult> results = new ArrayList<>();
+        List<ImportRowResult> invalid = new ArrayList<>();
+        Map<Map.Entry<String, Integer>, Integer> firstRowByKey = new HashMap<>();
+        Map<Integer, DishExcelImportDto> chunk = new LinkedHashMap<>();
         try {
-            // Process Excel file and map to DishDto objects
-            List<DishExcelImportDto> dishDtos = excelUtil.processExcel(file, DishExcelImportDto.class);
-
-            // Validate and save each dish
-            return dishDtos.stream()
-                    .map(this::validateAndSaveDish)
-                    .collect(Collectors.toList());
-
+            excelUtil.processExcel(inputStream, filename, DishExcelImportDto.class, ImportOptions.builder().build(),
+                    this::validateDishRow, (dto, rowNumber) -> {
+                        progress.rowRead();
+                        Integer firstRow = firstRowByKey.putIfAbsent(Map.entry(dto.getName(), dto.getPrice()), rowNumber);
+                        if (firstRow != null) {
+                            ImportRowResult duplicate = ImportRowResult.duplicate(rowNumber,
+                                    "تکرار ردیف %d در همین فایل.".formatted(firstRow));
+                            results.add(duplicate);
+                            progress.rowsDone(List.of(duplicate));
+                            return;
+                        }
+                        chunk.put(rowNumber, dto);
+                        if (chunk.size() >= importBatchSize) {
+                            results.addAll(saveNewDishes(chunk, progress));
+                            chunk.clear();
+                        }
+                    });
         } catch (IOException e) {
             throw new RuntimeException("خطا در خواندن فایل اکسل: %s".formatted(e.getMessage()), e);
         } catch (ExcelUtil.ExcelProcessingException e) {
-            throw new IllegalArgumentException("خطا در پردازش فایل اکسل: %s".formatted(e.getMessage()));
+            if (!e.hasErrors()) {
+                throw new IllegalArgumentException("خطا در پردازش فایل اکسل: %s".formatted(e.getMessage()));
+            }
+            e.getErrors().forEach(error -> invalid.add(ImportRowResult.invalid(error.getRowNumber(), error.getMessage())));
+        }
+        progress.readFinished(results.size() + chunk.size() + invalid.size());
+        progress.rowsDone(invalid);
+        results.addAll(invalid);
+        if (!chunk.isEmpty()) {
+            results.addAll(saveNewDishes(chunk, progress));
         }
+
+        results.sort(Comparator.comparingInt(ImportRowResult::getRowNumber));
+        return ImportResult.fromRows(results);
     }
 
-    /**
-     * Validates and saves a single dish
-     */
-    private DishDto validateAndSaveDish(DishExcelImportDto dishDto) {
-        // Validate required fields
+    private void validateDishRow(DishExcelImportDto dishDto) {
         if (dishDto.getName() == null || dishDto.getName().isEmpty()) {
             throw new IllegalArgumentException("نام غذا نمی‌تواند خالی باشد.");
         }
         if (dishDto.getPrice() == null) {
             throw new IllegalArgumentException("قیمت غذا نمی‌تواند خالی باشد.");
         }
+    }
 
-        // Check for duplicate dish name and price combination
-        if (dishRepository.existsDishByNameAndPrice(dishDto.getName(), dishDto.getPrice())) {
-            throw new IllegalArgumentException(
-                    String.format("غذایی با نام '%s' و قیمت '%d' قبلاً وجود دارد.", dishDto.getName(), dishDto.getPrice())
-            );
+    /**
+     * Inserts the rows of one chunk whose (name, price) is not in the database yet. Rows repeating
+     * an earlier row of the file have already been filtered out.
+     */
+    private List<ImportRowResult> saveNewDishes(Map<Integer, DishExcelImportDto> rows, ImportProgress progress) {
+        Set<Map.Entry<String, Integer>> existing = findExistingDishKeys(rows.values());
+        List<ImportRowResult> skipped = new ArrayList<>();
+        List<Integer> pendingRows = new ArrayList<>();
+        List<Dish> pendingDishes = new ArrayList<>();
+
+        for (Map.Entry<Integer, DishExcelImportDto> row : rows.entrySet()) {
+            DishExcelImportDto dto = row.getValue();
+            if (existing.contains(Map.entry(dto.getName(), dto.getPrice()))) {
+                skipped.add(ImportRowResult.duplicate(row.getKey(),
+                        "غذایی با نام '%s' و قیمت '%d' قبلاً وجود دارد.".formatted(dto.getName(), dto.getPrice())));
+                continue;
+            }
+            pendingRows.add(row.getKey());
+            pendingDishes.add(new Dish(dto.getName(), dto.getPrice()));
         }
+        progress.rowsDone(skipped);
 
-        // Save the dish
-        Dish dish = dishRepository.save(new Dish(dishDto.getName(), dishDto.getPrice()));
-        return new DishDto(dish.getId(), dish.getName(), dish.getPrice());
+        List<ImportRowResult> results = new ArrayList<>(skipped);
+        if (!pendingDishes.isEmpty()) {
+            results.addAll(insertBatch(pendingRows, pendingDishes, progress));
+        }
+        return results;
     }
 
-    public byte[] exportDishesToExcel(DishSearchForm form, String sortBy, String order) {
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Sort sort = order.equalsIgnoreCase("DESC")
-                    ? Sort.by(sortBy).descending()
-                    : Sort.by(sortBy).ascending();
-
-            List<Dish> dishList = dishRepository.findAll(DishSpecification.getSpecification(form), sort);
-
-            if (dishList.size() > 10000) {
-                throw new IllegalArgumentException("امکان گرفتن خروجی بیش از 10,000 غذا به صورت همزمان وجود ندارد.");
+    private Set<Map.Entry<String, Integer>> findExistingDishKeys(Collection<DishExcelImportDto> rows) {
+        List<String> names = rows.stream().map(DishExcelImportDto::getName).distinct().toList();
+        Set<Map.Entry<String, Integer>> existing = new HashSet<>();
+        // Bounded IN lists keep the statement well below PostgreSQL's bind parameter limit
+        for (int from = 0; from < names.size(); from += NAME_PROBE_SIZE) {
+            List<String> slice = names.subList(from, Math.min(from + NAME_PROBE_SIZE, names.size()));
+            for (DishDto dish : dishRepository.findAllByNameIn(slice)) {
+                if (dish.getPrice() != null) {
+                    existing.add(Map.entry(dish.getName(), dish.getPrice()));
+                }
             }
+        }
+        return existing;
+    }
 
-            Sheet sheet = workbook.createSheet("Dishes");
-            // Set sheet to right-to-left
-            sheet.setRightToLeft(true);
-
-            // --- Define Cell Styles ---
-            // Header Style
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerStyle.setFont(headerFont);
-            headerStyle.setAlignment(HorizontalAlignment.CENTER);
-            headerStyle.setVerticalAlignment(VerticalAlignment.CENTER);
-            headerStyle.setFillForegroundColor(IndexedColors.PALE_BLUE.getIndex()); // Example color
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            // Add all borders to header style
-            headerStyle.setBorderBottom(BorderStyle.THIN);
-            headerStyle.setBorderTop(BorderStyle.THIN);
-            headerStyle.setBorderLeft(BorderStyle.THIN);
-            headerStyle.setBorderRight(BorderStyle.THIN);
-
-
-            // Data Cell Style
-            CellStyle dataStyle = workbook.createCellStyle();
-            dataStyle.setAlignment(HorizontalAlignment.RIGHT); // Align data to the right for RTL
-            // Add all borders to data style
-            dataStyle.setBorderBottom(BorderStyle.THIN);
-            dataStyle.setBorderTop(BorderStyle.THIN);
-            dataStyle.setBorderLeft(BorderStyle.THIN);
-            dataStyle.setBorderRight(BorderStyle.THIN);
-
-
-            // Price Cell Style (Currency)
-            CellStyle priceStyle = workbook.createCellStyle();
-            DataFormat format = workbook.createDataFormat();
-            priceStyle.setDataFormat(format.getFormat("#,##0")); // Example: format as number with thousands separator
-            priceStyle.setAlignment(HorizontalAlignment.RIGHT); // Align numbers to the right
-            // Add all borders to price style
-            priceStyle.setBorderBottom(BorderStyle.THIN);
-            priceStyle.setBorderTop(BorderStyle.THIN);
-            priceStyle.setBorderLeft(BorderStyle.THIN);
-            priceStyle.setBorderRight(BorderStyle.THIN);
-
-            // --- Apply Styles to Header Row ---
-            Row headerRow = sheet.createRow(0);
-            Cell cellId = headerRow.createCell(0);
-            cellId.setCellValue("ID");
-            cellId.setCellStyle(headerStyle);
-
-            Cell cellName = headerRow.createCell(1);
-            cellName.setCellValue("Name");
-            cellName.setCellStyle(headerStyle);
-
-            Cell cellPriceHeader = headerRow.createCell(2);
-            cellPriceHeader.setCellValue("Price");
-            cellPriceHeader.setCellStyle(headerStyle);
-
-            int rowIdx = 1;
-            for (Dish dish : dishList) {
-                Row row = sheet.createRow(rowIdx++);
-
-                Cell idCell = row.createCell(0);
-                idCell.setCellValue(dish.getId() != null ? dish.getId() : 0);
-                idCell.setCellStyle(dataStyle); // Apply data style
-
-                Cell nameCell = row.createCell(1);
-                nameCell.setCellValue(dish.getName() != null ? dish.getName() : "");
-                nameCell.setCellStyle(dataStyle); // Apply data style
-
-                Cell priceCell = row.createCell(2);
-                priceCell.setCellValue(dish.getPrice() != null ? dish.getPrice() : 0);
-                priceCell.setCellStyle(priceStyle); // Apply price style
+    private List<ImportRowResult> insertBatch(List<Integer> rowNumbers, List<Dish> dishes, ImportProgress progress) {
+        List<ImportRowResult> results = new ArrayList<>(dishes.size());
+        try {
+            List<Dish> saved = transactionTemplate.execute(status -> dishRepository.saveAll(dishes));
+            for (int i = 0; i < saved.size(); i++) {
+                results.add(ImportRowResult.created(rowNumbers.get(i), saved.get(i).getId()));
             }
+        } catch (DataAccessException e) {
+            log.error("وارد کردن {} غذا با شکست مواجه شد", dishes.size(), e);
+            String message = "خطا در ذخیره‌سازی: %s".formatted(e.getMostSpecificCause().getMessage());
+            rowNumbers.forEach(rowNumber -> results.add(ImportRowResult.failed(rowNumber, message)));
+        }
+        progress.rowsDone(results);
+        return results;
+    }
 
-            sheet.autoSizeColumn(0);
-            sheet.autoSizeColumn(1);
-            sheet.autoSizeColumn(2);
+    /**
+     * Writes the dishes matching {@code form} to {@code out} as a right-to-left .xlsx.
+     * Rows are streamed from the database and detached once written, so the export
+     * size is no longer bounded by heap.
+     */
+    @Transactional(readOnly = true)
+    public void exportDishesToExcel(DishSearchForm form, String sortBy, String order, OutputStream out)
+            throws IOException {
+        try (Stream<DishDto> rows = streamDishes(form, sortBy, order)) {
+            excelUtil.generateExcel(rows, DishDto.class, "Dishes", true, EXPORT_HEADERS, out);
+        }
+    }
 
-            workbook.write(out);
-            return out.toByteArray();
-        } catch (Exception e) {
-            throw new RuntimeException("خطا در صدور اطلاعات غذاها به اکسل: %s".formatted(e.getMessage()), e);
+    /**
+     * Writes the dishes matching {@code form} to {@code out} as UTF-8 CSV with the same columns
+     * as the Excel export.
+     */
+    @Transactional(readOnly = true)
+    public void exportDishesToCsv(DishSearchForm form, String sortBy, String order, OutputStream out)
+            throws IOException {
+        try (Stream<DishDto> rows = streamDishes(form, sortBy, order)) {
+            excelUtil.generateCsv(rows, DishDto.class, EXPORT_HEADERS, out);
         }
     }
 
+    private Stream<DishDto> streamDishes(DishSearchForm form, String sortBy, String order) {
+        Sort sort = order.equalsIgnoreCase("DESC")
+                ? Sort.by(sortBy).descending()
+                : Sort.by(sortBy).ascending();
+
+        return dishRepository.findBy(DishSpecification.getSpecification(form), query -> query.sortBy(sort).stream())
+                .map(dish -> {
+                    DishDto dto = dishMapper.toDto(dish);
+                    entityManager.detach(dish);
+                    return dto;
+                });
+    }
+
 
 }
@@ -0,0 +1,305 @@
+package com.mapnaom.foodapp.services;
+
+import com.mapnaom.foodapp.dtos.ImportJobDto;
+import com.mapnaom.foodapp.enums.ImportJobStatus;
+import com.mapnaom.foodapp.exceptions.ImportJobRejectedException;
+import com.mapnaom.foodapp.utils.ExcelUtil;
+import com.mapnaom.foodapp.utils.ImportProgress;
+import com.mapnaom.foodapp.utils.ImportResult;
+import com.mapnaom.foodapp.utils.ImportRowResult;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs spreadsheet imports in the background so an upload returns as soon as the file is stored.
+ * <p>
+ * Jobs run on a small fixed pool with a bounded queue; once both are full, further uploads are
+ * refused instead of piling up on disk. Imports commit their rows chunk by chunk, so a job never
+ * holds a connection for the whole file. Finished jobs stay queryable for
+ * {@code application.import.jobs.retention} and are then forgotten. A job keeps only the first
+ * {@code application.import.jobs.max-errors} row errors, so a file full of bad rows neither grows
+ * the job without bound nor makes every status poll copy and serialize them all.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImportJobService {
+
+    /**
+     * An import as run by a job: reads {@code inputStream}, reports rows to {@code progress}
+     * and commits them in chunks.
+     */
+    @FunctionalInterface
+    public interface ImportTask {
+        ImportResult run(InputStream inputStream, String filename, ImportProgress progress) throws IOException;
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.import.jobs.threads:2}")
+    private int threads;
+    @Value("${application.import.jobs.queue-capacity:16}")
+    private int queueCapacity;
+    @Value("${application.import.jobs.retention:PT1H}")
+    private Duration retention;
+    @Value("${application.import.jobs.max-errors:100}")
+    private int maxErrors;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void initExecutor() {
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ImportThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("imports.jobs.queue", executor, e -> e.getQueue().size())
+                .description("Import jobs waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("imports.jobs.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Stores {@code file} and queues {@code task} for it.
+     *
+     * @param type short name of what is imported, shown in the job status
+     * @return the queued job; poll {@link #findJob(String)} with its id for progress
+     * @throws ImportJobRejectedException if every worker is busy and the queue is full
+     */
+    public ImportJobDto submit(String type, MultipartFile file, ImportTask task) {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("فایل نمی‌تواند خالی باشد.");
+        }
+        String filename = ExcelUtil.importFilename(file);
+        if (filename == null || !(filename.endsWith(".xlsx") || filename.endsWith(".xls") || ExcelUtil.isCsv(filename))) {
+            throw new IllegalArgumentException("فقط فایل‌های اکسل (.xls یا .xlsx) یا CSV پشتیبانی می‌شوند.");
+        }
+
+        // The multipart temp file is removed when the request ends, so the job works on its own copy
+        Path upload;
+        try {
+            upload = Files.createTempFile("import-job-", ".upload");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store the uploaded file", e);
+        }
+        try (InputStream inputStream = file.getInputStream()) {
+            Files.copy(inputStream, upload, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            deleteQuietly(upload);
+            throw new UncheckedIOException("Could not store the uploaded file", e);
+        }
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), type, filename, currentUsername(), maxErrors);
+        jobs.put(job.id, job);
+        try {
+            // Auditing reads the current user, so the worker runs with the uploader's security context
+            executor.execute(new DelegatingSecurityContextRunnable(() -> run(job, upload, task)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            deleteQuietly(upload);
+            throw new ImportJobRejectedException("صف وارد کردن فایل‌ها پر است؛ لطفاً چند دقیقه بعد دوباره تلاش کنید.");
+        }
+        log.info("Import job {} queued: {} from {}", job.id, type, job.filename);
+        return job.toDto();
+    }
+
+    /**
+     * @return the job with this id if it is still retained and was submitted by the current user
+     */
+    public Optional<ImportJobDto> findJob(String id) {
+        ImportJob job = jobs.get(id);
+        if (job == null || (job.owner != null && !job.owner.equals(currentUsername()))) {
+            return Optional.empty();
+        }
+        return Optional.of(job.toDto());
+    }
+
+    @Scheduled(fixedDelayString = "${application.import.jobs.purge-interval:PT5M}")
+    public void purgeFinishedJobs() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    private void run(ImportJob job, Path upload, ImportTask task) {
+        job.start();
+        try (InputStream inputStream = Files.newInputStream(upload)) {
+            ImportResult result = task.run(inputStream, job.filename, job);
+            job.complete(result);
+            log.info("Import job {} completed: {}", job.id, result.getSummary());
+        } catch (Exception e) {
+            log.error("Import job {} failed", job.id, e);
+            job.fail(e.getMessage());
+        } finally {
+            deleteQuietly(upload);
+        }
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete import file {}", file, e);
+        }
+    }
+
+    /**
+     * Live state of one job. Written only by its worker thread and read by status requests.
+     */
+    private static final class ImportJob implements ImportProgress {
+        private final String id;
+        private final String type;
+        private final String filename;
+        private final String owner;
+        private final int maxErrors;
+        private final Instant submittedAt = Instant.now();
+        private final AtomicInteger rowsRead = new AtomicInteger();
+        private final AtomicInteger rowsProcessed = new AtomicInteger();
+        private final AtomicInteger successCount = new AtomicInteger();
+        private final AtomicInteger skippedCount = new AtomicInteger();
+        private final AtomicInteger errorCount = new AtomicInteger();
+        // The first maxErrors row errors; errorCount keeps the total
+        private final List<ExcelUtil.ExcelError> errors = Collections.synchronizedList(new ArrayList<>());
+        private volatile ImportJobStatus status = ImportJobStatus.QUEUED;
+        private volatile Integer totalRows;
+        private volatile String failureMessage;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+
+        private ImportJob(String id, String type, String filename, String owner, int maxErrors) {
+            this.id = id;
+            this.type = type;
+            this.filename = filename;
+            this.owner = owner;
+            this.maxErrors = maxErrors;
+        }
+
+        @Override
+        public void rowRead() {
+            rowsRead.incrementAndGet();
+        }
+
+        @Override
+        public void readFinished(int totalRows) {
+            this.totalRows = totalRows;
+            this.status = ImportJobStatus.WRITING;
+        }
+
+        @Override
+        public void rowsDone(Collection<ImportRowResult> rows) {
+            for (ImportRowResult row : rows) {
+                switch (row.getStatus()) {
+                    case CREATED, UPDATED -> successCount.incrementAndGet();
+                    case DUPLICATE, UNCHANGED -> skippedCount.incrementAndGet();
+                    default -> {
+                        if (errorCount.incrementAndGet() <= maxErrors) {
+                            errors.add(new ExcelUtil.ExcelError(row.getRowNumber(), row.getMessage()));
+                        }
+                    }
+                }
+            }
+            rowsProcessed.addAndGet(rows.size());
+        }
+
+        private void start() {
+            startedAt = Instant.now();
+            status = ImportJobStatus.READING;
+        }
+
+        private void complete(ImportResult result) {
+            // The result is authoritative should an import have reported fewer rows than it handled
+            successCount.set(result.getSuccessCount());
+            skippedCount.set(result.getSkippedCount());
+            errorCount.set(result.getErrorCount());
+            finishedAt = Instant.now();
+            status = ImportJobStatus.COMPLETED;
+        }
+
+        private void fail(String message) {
+            failureMessage = message;
+            finishedAt = Instant.now();
+            status = ImportJobStatus.FAILED;
+        }
+
+        private ImportJobDto toDto() {
+            Integer total = totalRows;
+            int processed = rowsProcessed.get();
+            List<ExcelUtil.ExcelError> errorSnapshot;
+            synchronized (errors) {
+                errorSnapshot = List.copyOf(errors);
+            }
+            return ImportJobDto.builder()
+                    .id(id)
+                    .type(type)
+                    .filename(filename)
+                    .status(status)
+                    .totalRows(total)
+                    .rowsRead(rowsRead.get())
+                    .rowsProcessed(processed)
+                    .percentComplete(total == null ? null : total == 0 ? 100 : Math.min(100, processed * 100 / total))
+                    .successCount(successCount.get())
+                    .skippedCount(skippedCount.get())
+                    .errorCount(errorCount.get())
+                    .errors(errorSnapshot)
+                    .failureMessage(failureMessage)
+                    .submittedAt(submittedAt)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+    }
+
+    private static final class ImportThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "import-job-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -11,21 +11,35 @@ import com.mapnaom.foodapp.repository.PersonnelRepository;
 import com.mapnaom.foodapp.repository.ReservationRepository;
 import com.mapnaom.foodapp.specifications.PersonnelSpecification;
 import com.mapnaom.foodapp.utils.ExcelUtil;
+import com.mapnaom.foodapp.utils.ImportOptions;
+import com.mapnaom.foodapp.utils.ImportProgress;
+import com.mapnaom.foodapp.utils.ImportResult;
+import com.mapnaom.foodapp.utils.ImportRowResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -37,6 +51,10 @@ public class PersonnelService {
     private final PersonnelMapper personnelMapper;
     private final ExcelUtil excelUtil;
     private final ReservationRepository reservationRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${application.import.batch-size:500}")
+    private int importBatchSize;
 
 
     /**
@@ -123,59 +141,171 @@ public class PersonnelService {
         personnelRepository.deleteById(id);
     }
 
-    @Transactional
-    public List<PersonnelDto> importFromExcel(MultipartFile file) {
-        List<PersonnelDto> successfulImports = new ArrayList<>();
-        List<PersonnelDto> failedImports = new ArrayList<>();
-
-        try {
-            // Process Excel file and map to DTOs
-            List<PersonnelDto> personnelDtos = excelUtil.processExcel(file, PersonnelDto.class);
-
-            // Process each DTO
-            for (PersonnelDto dto : personnelDtos) {
-                try {
-                    Personnel personnel = personnelMapper.toEntity(dto);
-                    Personnel savedPersonnel = personnelRepository.save(personnel);
-                    successfulImports.add(personnelMapper.toDto(savedPersonnel));
-                } catch (DataIntegrityViolationException e) {
-                    String errorMessage;
-                    if (e.getMessage().contains("username")) {
-                        errorMessage = String.format("نام کاربری %s از قبل وجود دارد", dto.getUsername());
-                    } else {
-                        errorMessage = String.format("ترکیب تکراری کد پرسنلی %s، نام %s و نام خانوادگی %s وجود دارد",
-                                dto.getPersCode(), dto.getFirstName(), dto.getLastName());
-                    }
-                    log.error("وارد کردن پرسنل با شکست مواجه شد: {} - دلیل: {}", dto, errorMessage);
-                    failedImports.add(dto);
-                } catch (Exception e) {
-                    log.error("خطای غیرمنتظره هنگام وارد کردن پرسنل: {}", dto, e);
-                    failedImports.add(dto);
-                }
-            }
+    /**
+     * Imports personnel as an idempotent upsert keyed by personnel code: unknown codes are
+     * inserted, known ones get their username and name updated, so re-running a file is harmless.
+     * <p>
+     * Rows are written as they are read, in chunks of {@code application.import.batch-size}, each
+     * in its own transaction with a single lookup of the chunk's codes and usernames; a failing
+     * chunk does not roll back the ones already committed.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ImportResult importFromExcel(InputStream inputStream, String filename, ImportProgress progress) {
+        List<ImportRowResult> results = new ArrayList<>();
+        List<ImportRowResult> invalid = new ArrayList<>();
 
-            // Log import results
-            log.info("وارد کردن فایل اکسل به پایان رسید. واردهای موفق: {}, واردهای ناموفق: {}",
-                    Optional.of(successfulImports.size()), Optional.of(failedImports.size()));
+        // Chunks are written while the file is still being read; only the codes and usernames
+        // already seen are kept, to report rows repeating an earlier one
+        Map<String, Integer> firstRowByPersCode = new HashMap<>();
+        Map<String, Integer> firstRowByUsername = new HashMap<>();
+        List<Map.Entry<Integer, PersonnelDto>> chunk = new ArrayList<>(importBatchSize);
 
-            return successfulImports;
+        // Rows are mapped and validated in parallel; rows failing validation are reported and skipped
+        try {
+            excelUtil.processExcel(inputStream, filename, PersonnelDto.class, ImportOptions.builder().build(),
+                    this::validatePersonnelRow, (dto, rowNumber) -> {
+                        progress.rowRead();
+                        Integer sameCode = firstRowByPersCode.putIfAbsent(dto.getPersCode(), rowNumber);
+                        Integer sameUsername = sameCode == null ? firstRowByUsername.putIfAbsent(dto.getUsername(), rowNumber) : null;
+                        if (sameCode != null || sameUsername != null) {
+                            ImportRowResult duplicate = ImportRowResult.duplicate(rowNumber,
+                                    "تکرار ردیف %d در همین فایل.".formatted(sameCode != null ? sameCode : sameUsername));
+                            results.add(duplicate);
+                            progress.rowsDone(List.of(duplicate));
+                            return;
+                        }
 
+                        chunk.add(Map.entry(rowNumber, dto));
+                        if (chunk.size() >= importBatchSize) {
+                            results.addAll(importChunk(chunk, progress));
+                            chunk.clear();
+                        }
+                    });
+        } catch (ExcelUtil.ExcelProcessingException e) {
+            if (!e.hasErrors()) {
+                String errorMessage = "هنگام پردازش فایل اکسل خطایی رخ داد: %s".formatted(e.getMessage());
+                log.error(errorMessage, e);
+                throw new RuntimeException(errorMessage, e);
+            }
+            e.getErrors().forEach(error -> invalid.add(ImportRowResult.invalid(error.getRowNumber(), error.getMessage())));
         } catch (IOException e) {
             String errorMessage = "خطایی هنگام خواندن فایل اکسل رخ داد: %s".formatted(e.getMessage());
             log.error(errorMessage, e);
             throw new RuntimeException(errorMessage, e);
-        } catch (ExcelUtil.ExcelProcessingException e) {
-            String errorMessage = "هنگام پردازش فایل اکسل خطایی رخ داد: %s".formatted(e.getMessage());
-            log.error(errorMessage, e);
-            throw new RuntimeException(errorMessage, e);
         }
+
+        progress.readFinished(results.size() + chunk.size() + invalid.size());
+        progress.rowsDone(invalid);
+        results.addAll(invalid);
+        if (!chunk.isEmpty()) {
+            results.addAll(importChunk(chunk, progress));
+        }
+
+        results.sort(Comparator.comparingInt(ImportRowResult::getRowNumber));
+        ImportResult result = ImportResult.fromRows(results);
+        log.info("وارد کردن فایل اکسل به پایان رسید. واردهای موفق: {}, ردشده: {}, ناموفق: {}",
+                result.getSuccessCount(), result.getSkippedCount(), result.getErrorCount());
+        return result;
     }
-    public byte[] exportToExcel() {
-        List<Personnel> personnelList = personnelRepository.findAll(Sort.by("id").ascending());
-        List<PersonnelDto> personnelDtos = personnelList.stream()
-                .map(personnelMapper::toDto)
-                .collect(Collectors.toList());
-        return excelUtil.generateExcel(personnelDtos, PersonnelDto.class);
+
+    private List<ImportRowResult> importChunk(List<Map.Entry<Integer, PersonnelDto>> chunk, ImportProgress progress) {
+        List<ImportRowResult> results;
+        try {
+            results = transactionTemplate.execute(status -> upsertChunk(chunk));
+        } catch (DataAccessException e) {
+            log.error("وارد کردن {} ردیف پرسنل با شکست مواجه شد", chunk.size(), e);
+            String message = "خطا در ذخیره‌سازی: %s".formatted(e.getMostSpecificCause().getMessage());
+            results = chunk.stream()
+                    .map(row -> ImportRowResult.failed(row.getKey(), message))
+                    .toList();
+        }
+        progress.rowsDone(results);
+        return results;
+    }
+
+    private List<ImportRowResult> upsertChunk(List<Map.Entry<Integer, PersonnelDto>> chunk) {
+        Set<String> persCodes = new HashSet<>();
+        Set<String> usernames = new HashSet<>();
+        for (Map.Entry<Integer, PersonnelDto> row : chunk) {
+            persCodes.add(row.getValue().getPersCode());
+            usernames.add(row.getValue().getUsername());
+        }
+
+        Map<String, Personnel> byPersCode = new HashMap<>();
+        Map<String, Personnel> byUsername = new HashMap<>();
+        for (Personnel personnel : personnelRepository.findAllByPersCodeInOrUsernameIn(persCodes, usernames)) {
+            byPersCode.put(personnel.getPersCode(), personnel);
+            byUsername.put(personnel.getUsername(), personnel);
+        }
+
+        List<ImportRowResult> results = new ArrayList<>(chunk.size());
+        List<Integer> insertedRows = new ArrayList<>();
+        List<Personnel> inserted = new ArrayList<>();
+
+        for (Map.Entry<Integer, PersonnelDto> row : chunk) {
+            PersonnelDto dto = row.getValue();
+            Personnel current = byPersCode.get(dto.getPersCode());
+            Personnel usernameOwner = byUsername.get(dto.getUsername());
+
+            if (usernameOwner != null && usernameOwner != current) {
+                results.add(ImportRowResult.duplicate(row.getKey(),
+                        "نام کاربری %s متعلق به پرسنل با کد %s است".formatted(dto.getUsername(), usernameOwner.getPersCode())));
+            } else if (current == null) {
+                insertedRows.add(row.getKey());
+                inserted.add(new Personnel(dto.getUsername(), null, dto.getPersCode(), dto.getFirstName(), dto.getLastName()));
+            } else if (Objects.equals(current.getUsername(), dto.getUsername())
+                    && Objects.equals(current.getFirstName(), dto.getFirstName())
+                    && Objects.equals(current.getLastName(), dto.getLastName())) {
+                results.add(ImportRowResult.unchanged(row.getKey(), current.getId()));
+            } else {
+                // Flushed by dirty checking when the chunk commits
+                current.setUsername(dto.getUsername());
+                current.setFirstName(dto.getFirstName());
+                current.setLastName(dto.getLastName());
+                results.add(ImportRowResult.updated(row.getKey(), current.getId()));
+            }
+        }
+
+        List<Personnel> saved = personnelRepository.saveAll(inserted);
+        for (int i = 0; i < saved.size(); i++) {
+            results.add(ImportRowResult.created(insertedRows.get(i), saved.get(i).getId()));
+        }
+        return results;
+    }
+
+    /**
+     * Rejects rows missing a column that is mandatory on {@link Personnel}.
+     */
+    private void validatePersonnelRow(PersonnelDto dto) {
+        if (isBlank(dto.getUsername())) throw new IllegalArgumentException("نام کاربری نمی‌تواند خالی باشد");
+        if (isBlank(dto.getPersCode())) throw new IllegalArgumentException("کد پرسنلی نمی‌تواند خالی باشد");
+        if (isBlank(dto.getFirstName())) throw new IllegalArgumentException("نام نمی‌تواند خالی باشد");
+        if (isBlank(dto.getLastName())) throw new IllegalArgumentException("نام خانوادگی نمی‌تواند خالی باشد");
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * Writes all personnel to {@code out} as an .xlsx, streaming rows from the database
+     * so that neither the result set nor the workbook is held in memory.
+     */
+    @Transactional(readOnly = true)
+    public void exportToExcel(OutputStream out) throws IOException {
+        try (Stream<PersonnelDto> personnel = personnelRepository.streamAllForExport()) {
+            excelUtil.generateExcel(personnel, PersonnelDto.class, "Data", false, null, out);
+        }
+    }
+
+    /**
+     * Writes all personnel to {@code out} as UTF-8 CSV, streaming rows from the database.
+     */
+    @Transactional(readOnly = true)
+    public void exportToCsv(OutputStream out) throws IOException {
+        try (Stream<PersonnelDto> personnel = personnelRepository.streamAllForExport()) {
+            excelUtil.generateCsv(personnel, PersonnelDto.class, null, out);
+        }
     }
 
 
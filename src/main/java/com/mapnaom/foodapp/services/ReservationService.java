@@ -2,6 +2,7 @@ package com.mapnaom.foodapp.services;
 
 import com.mapnaom.foodapp.dtos.*;
 import com.mapnaom.foodapp.enums.ReservationStatus;
+import com.mapnaom.foodapp.exceptions.ReservationStatusConflictException;
 import com.mapnaom.foodapp.exceptions.ResourceNotFoundException;
 import com.mapnaom.foodapp.mappers.*;
 import com.mapnaom.foodapp.models.*;
@@ -13,13 +14,30 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -37,6 +55,8 @@ public class ReservationService {
     private final DailyMealRepository dailyMealRepository;
     private final ReservationMapper reservationMapper;
     private final AppSettingRepository appSettingRepository;
+    private final ServingRosterService servingRosterService;
+    private final TransactionTemplate transactionTemplate;
 
     public Page<ReservationDto> searchReservations(ReservationSearchForm form, int page, int size, String sortBy, String order) {
         Sort sort = order.equalsIgnoreCase("DESC")
@@ -71,25 +91,32 @@ public class ReservationService {
 
                 // Update only the fields that should be modifiable
                 updateReservationFields(reservation, reservationDto);
+                reservation = reservationRepository.save(reservation);
 
             } else {
-                // Create new reservation
-                reservation = createNewReservation(reservationDto);
+                // Create new reservation, or take over the one already held for this meal
+                reservation = upsertByPersonnelAndDailyMeal(reservationDto);
             }
 
-            // Save and return the updated/created reservation
-            Reservation savedReservation = reservationRepository.save(reservation);
-            log.info("Successfully upserted reservation with id: {}", savedReservation.getId());
+            servingRosterService.statusChanged(reservation.getId(), reservation.getReservationStatus());
+            log.info("Successfully upserted reservation with id: {}", reservation.getId());
 
-            return reservationMapper.toDto(savedReservation);
+            return reservationMapper.toDto(reservation);
 
+        } catch (ReservationStatusConflictException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error upserting reservation: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to upsert reservation: %s".formatted(e.getMessage()), e);
         }
     }
 
-    private Reservation createNewReservation(ReservationDto reservationDto) {
+    /**
+     * Inserts or updates the reservation of the personnel for the daily meal in one statement, so two
+     * concurrent requests for the same meal cannot both create one and no existence check is needed.
+     * A cancelled or expired reservation becomes active again; a delivered one is refused with a conflict.
+     */
+    private Reservation upsertByPersonnelAndDailyMeal(ReservationDto reservationDto) {
         // Fetch related entities
         Personnel personnel = personnelRepository.findPersonnelByUsername(reservationDto.getUsername())
                 .orElseThrow(() -> new ResourceNotFoundException(
@@ -109,22 +136,38 @@ public class ReservationService {
                     "DailyMealDish does not belong to the specified DailyMeal");
         }
 
-        // Create the reservation first
-        Reservation reservation = Reservation.builder()
-                .personnel(personnel)
-                .dailyMeal(dailyMeal)
-                .dailyMealDish(dailyMealDish)
-                .reservationStatus(reservationDto.getReservationStatus() != null
-                        ? reservationDto.getReservationStatus()
-                        : ReservationStatus.ACTIVE)
-                .build();
-
-        // Create and associate the CostShare
-        CostShare costShare = createCostShareForReservation(reservation, reservationDto.getCostShares());
-        reservation.setCostShare(costShare);
+        BigDecimal dishPrice = BigDecimal.valueOf(dailyMealDish.getDish().getPrice());
+        BigDecimal employeeShare = reservationDto.getCostShares() != null ? reservationDto.getCostShares() : BigDecimal.ZERO;
+        ReservationStatus status = reservationDto.getReservationStatus() != null
+                ? reservationDto.getReservationStatus()
+                : ReservationStatus.ACTIVE;
+
+        Long id = reservationRepository.upsertByPersonnelAndDailyMeal(
+                        personnel.getId(),
+                        dailyMeal.getId(),
+                        dailyMealDish.getId(),
+                        status.name(),
+                        reservationDto.getReservationStatus() == null,
+                        LocalDateTime.now(),
+                        currentUsername(),
+                        Instant.now(),
+                        dishPrice,
+                        employeeShare,
+                        dishPrice.subtract(employeeShare))
+                // Nothing is returned when the reservation already held for this meal has been delivered
+                .orElseThrow(() -> new ReservationStatusConflictException(
+                        reservationRepository.findByPersonnelIdAndDailyMeal_Id(personnel.getId(), dailyMeal.getId())
+                                .map(Reservation::getId)
+                                .orElse(null),
+                        ReservationStatus.DELIVERED, status));
+
+        return reservationRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Reservation not found with id: %d".formatted(id)));
+    }
 
-        // Build new reservation
-        return reservation;
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
     }
 
     private void updateReservationFields(Reservation reservation, ReservationDto reservationDto) {
@@ -199,14 +242,294 @@ public class ReservationService {
     }
 
 
-    // Alternative batch upsert method for multiple reservations
+    /**
+     * Creates or updates many reservations at once, for example a whole month for one employee.
+     * <p>
+     * Personnel, daily meals, daily-meal dishes and the reservations that may be updated are each
+     * loaded with one query; everything else is checked in memory and new reservations are inserted
+     * with one statement. An item without an id updates the reservation its employee already holds on
+     * that meal, including one created earlier in the same batch, with the rules of
+     * {@link #upsertReservation}: a cancelled or expired reservation becomes active again and a delivered
+     * one is reported as a conflict. An item moving a reservation onto a meal its employee already holds
+     * is rejected as invalid. Items that cannot be applied are reported in the result and do not affect
+     * the others.
+     */
     @Transactional
-    public List<ReservationDto> upsertReservations(List<ReservationDto> reservationDtos) {
+    public List<ReservationUpsertResultDto> upsertReservations(List<ReservationDto> reservationDtos) {
         log.info("Batch upserting {} reservations", reservationDtos.size());
 
-        return reservationDtos.stream()
-                .map(this::upsertReservation)
-                .collect(Collectors.toList());
+        Set<Long> ids = new HashSet<>();
+        Set<String> usernames = new HashSet<>();
+        Set<Long> dailyMealIds = new HashSet<>();
+        Set<Long> dailyMealDishIds = new HashSet<>();
+        for (ReservationDto dto : reservationDtos) {
+            if (isUpdate(dto)) ids.add(dto.getId());
+            if (dto.getUsername() != null) usernames.add(dto.getUsername());
+            if (dto.getDailyMealId() != null) dailyMealIds.add(dto.getDailyMealId());
+            if (dto.getDailyMealDishId() != null) dailyMealDishIds.add(dto.getDailyMealDishId());
+        }
+
+        Map<String, Personnel> personnelByUsername = personnelRepository.findAllByUsernameIn(usernames).stream()
+                .collect(Collectors.toMap(Personnel::getUsername, Function.identity(), (first, second) -> first));
+        Map<Long, DailyMeal> dailyMeals = dailyMealRepository.findAllById(dailyMealIds).stream()
+                .collect(Collectors.toMap(DailyMeal::getId, Function.identity()));
+        Map<Long, DailyMealDish> dailyMealDishes = dailyMealDishRepository.findAllWithDishAndDailyMealByIdIn(dailyMealDishIds).stream()
+                .collect(Collectors.toMap(DailyMealDish::getId, Function.identity()));
+        Set<Long> personnelIds = personnelByUsername.values().stream()
+                .map(Personnel::getId)
+                .collect(Collectors.toSet());
+
+        Map<Long, Reservation> reservationsById = new HashMap<>();
+        Map<MealKey, Reservation> reservationsByMeal = new HashMap<>();
+        for (Reservation reservation : reservationRepository.findForBatchUpsert(ids, personnelIds, dailyMealIds)) {
+            reservationsById.put(reservation.getId(), reservation);
+            reservationsByMeal.putIfAbsent(MealKey.of(reservation), reservation);
+        }
+
+        int size = reservationDtos.size();
+        ReservationUpsertResultDto[] results = new ReservationUpsertResultDto[size];
+        Reservation[] updated = new Reservation[size];
+        NewReservation[] created = new NewReservation[size];
+        Map<MealKey, NewReservation> newByMeal = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            ReservationDto dto = reservationDtos.get(i);
+            Reservation reservation = isUpdate(dto) ? reservationsById.get(dto.getId()) : null;
+            if (isUpdate(dto) && reservation == null) {
+                results[i] = ReservationUpsertResultDto.notFound(i, "Reservation not found with id: %d".formatted(dto.getId()));
+                continue;
+            }
+
+            Personnel personnel = dto.getUsername() != null
+                    ? personnelByUsername.get(dto.getUsername())
+                    : reservation != null ? reservation.getPersonnel() : null;
+            if (personnel == null) {
+                results[i] = ReservationUpsertResultDto.notFound(i, "Personnel not found with username: %s".formatted(dto.getUsername()));
+                continue;
+            }
+            DailyMeal dailyMeal = dto.getDailyMealId() != null
+                    ? dailyMeals.get(dto.getDailyMealId())
+                    : reservation != null ? reservation.getDailyMeal() : null;
+            if (dailyMeal == null) {
+                results[i] = ReservationUpsertResultDto.notFound(i, "DailyMeal not found with id: %d".formatted(dto.getDailyMealId()));
+                continue;
+            }
+            DailyMealDish dailyMealDish = dto.getDailyMealDishId() != null
+                    ? dailyMealDishes.get(dto.getDailyMealDishId())
+                    : reservation != null ? reservation.getDailyMealDish() : null;
+            if (dailyMealDish == null) {
+                results[i] = ReservationUpsertResultDto.notFound(i, "DailyMealDish not found with id: %d".formatted(dto.getDailyMealDishId()));
+                continue;
+            }
+            // An untouched dish of an existing reservation is not loaded just to re-check it
+            boolean dishOrMealChanged = reservation == null
+                    || reservation.getDailyMealDish() == null
+                    || !dailyMealDish.getId().equals(reservation.getDailyMealDish().getId())
+                    || !dailyMeal.getId().equals(reservation.getDailyMeal().getId());
+            if (dishOrMealChanged && !dailyMealDish.getDailyMeal().getId().equals(dailyMeal.getId())) {
+                results[i] = ReservationUpsertResultDto.invalid(i, "DailyMealDish does not belong to the specified DailyMeal");
+                continue;
+            }
+
+            MealKey key = new MealKey(personnel.getId(), dailyMeal.getId());
+            Reservation holder = reservationsByMeal.get(key);
+            if (reservation != null) {
+                if ((holder != null && holder != reservation) || newByMeal.containsKey(key)) {
+                    // Would trip the unique index at flush and abort the whole batch. A meal another item
+                    // moves away from stays taken, as the index is checked row by row when updates flush.
+                    results[i] = ReservationUpsertResultDto.invalid(i,
+                            "Personnel %s already has a reservation for daily meal %d".formatted(personnel.getUsername(), dailyMeal.getId()));
+                    continue;
+                }
+                applyUpdate(reservation, personnel, dailyMeal, dailyMealDish, dto);
+                reservationsByMeal.put(key, reservation);
+                updated[i] = reservation;
+            } else if (holder != null) {
+                if (holder.getReservationStatus() == ReservationStatus.DELIVERED) {
+                    results[i] = ReservationUpsertResultDto.conflict(i,
+                            "Reservation %d is DELIVERED and cannot be changed".formatted(holder.getId()));
+                    continue;
+                }
+                applyUpdate(holder, personnel, dailyMeal, dailyMealDish, dto);
+                if (dto.getReservationStatus() == null && REVIVABLE.contains(holder.getReservationStatus())) {
+                    holder.setReservationStatus(ReservationStatus.ACTIVE);
+                }
+                updated[i] = holder;
+            } else {
+                int index = i;
+                NewReservation pending = newByMeal.computeIfAbsent(key, k -> new NewReservation(k, index));
+                pending.apply(dailyMealDish, dto);
+                created[i] = pending;
+            }
+        }
+
+        insertNewReservations(newByMeal.values());
+
+        int applied = 0;
+        List<ReservationUpsertResultDto> resultList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (results[i] == null) {
+                Reservation reservation = updated[i] != null ? updated[i] : created[i].reservation;
+                if (reservation == null) {
+                    results[i] = ReservationUpsertResultDto.conflict(i,
+                            "The reservation for this meal is DELIVERED and cannot be changed");
+                } else {
+                    servingRosterService.statusChanged(reservation.getId(), reservation.getReservationStatus());
+                    ReservationDto dto = reservationMapper.toDto(reservation);
+                    results[i] = updated[i] == null && created[i].firstIndex == i && !created[i].merged
+                            ? ReservationUpsertResultDto.created(i, dto)
+                            : ReservationUpsertResultDto.updated(i, dto);
+                    applied++;
+                }
+            }
+            resultList.add(results[i]);
+        }
+        log.info("Batch upsert applied {} of {} reservations ({} new)", applied, size, newByMeal.size());
+        return resultList;
+    }
+
+    private static final Set<ReservationStatus> REVIVABLE = EnumSet.of(ReservationStatus.CANCELLED, ReservationStatus.EXPIRED);
+
+    /**
+     * Points an existing reservation at the item's personnel, meal and dish. The cost share is priced
+     * again when the dish changes, as the single upsert does.
+     */
+    private void applyUpdate(Reservation reservation, Personnel personnel, DailyMeal dailyMeal,
+                             DailyMealDish dailyMealDish, ReservationDto dto) {
+        boolean dishChanged = reservation.getDailyMealDish() == null
+                || !dailyMealDish.getId().equals(reservation.getDailyMealDish().getId());
+        reservation.setPersonnel(personnel);
+        reservation.setDailyMeal(dailyMeal);
+        reservation.setDailyMealDish(dailyMealDish);
+        if (dto.getReservationStatus() != null) {
+            reservation.setReservationStatus(dto.getReservationStatus());
+        }
+
+        CostShare costShare = reservation.getCostShare();
+        if (costShare == null) {
+            if (dto.getCostShares() != null) {
+                reservation.setCostShare(createCostShareForReservation(reservation, dto.getCostShares()));
+            }
+        } else if (dishChanged) {
+            BigDecimal dishPrice = BigDecimal.valueOf(dailyMealDish.getDish().getPrice());
+            if (costShare.getTotalCost() == null || costShare.getTotalCost().compareTo(dishPrice) != 0) {
+                BigDecimal employeeShare = dto.getCostShares() != null ? dto.getCostShares() : BigDecimal.ZERO;
+                costShare.setTotalCost(dishPrice)
+                        .setEmployeePortion(employeeShare)
+                        .setEmployerPortion(dishPrice.subtract(employeeShare));
+            }
+        }
+    }
+
+    /**
+     * Inserts the batch's new reservations and their cost shares with one statement. A meal reserved
+     * concurrently since the batch was read is skipped by the insert and then merged through the single
+     * upsert, so it follows the same rules instead of aborting the batch on the unique index.
+     */
+    private void insertNewReservations(Collection<NewReservation> reservations) {
+        if (reservations.isEmpty()) {
+            return;
+        }
+        int count = reservations.size();
+        Long[] personnelIds = new Long[count];
+        Long[] dailyMealIds = new Long[count];
+        Long[] dailyMealDishIds = new Long[count];
+        String[] statuses = new String[count];
+        BigDecimal[] totalCosts = new BigDecimal[count];
+        BigDecimal[] employeePortions = new BigDecimal[count];
+        int i = 0;
+        for (NewReservation reservation : reservations) {
+            personnelIds[i] = reservation.key.personnelId();
+            dailyMealIds[i] = reservation.key.dailyMealId();
+            dailyMealDishIds[i] = reservation.dailyMealDish.getId();
+            statuses[i] = reservation.status().name();
+            totalCosts[i] = reservation.totalCost();
+            employeePortions[i] = reservation.employeePortion();
+            i++;
+        }
+
+        String username = currentUsername();
+        Instant now = Instant.now();
+        LocalDateTime reservationTime = LocalDateTime.ofInstant(now, ZoneId.systemDefault());
+        List<Long> insertedIds = reservationRepository.insertSkippingTakenMeals(personnelIds, dailyMealIds,
+                dailyMealDishIds, statuses, totalCosts, employeePortions, reservationTime, username, now);
+        Map<MealKey, Reservation> inserted = reservationRepository.findForBatchUpsert(insertedIds, List.of(), List.of()).stream()
+                .collect(Collectors.toMap(MealKey::of, Function.identity()));
+
+        for (NewReservation reservation : reservations) {
+            reservation.reservation = inserted.get(reservation.key);
+            if (reservation.reservation == null) {
+                reservation.merged = true;
+                reservation.reservation = reservationRepository.upsertByPersonnelAndDailyMeal(
+                                reservation.key.personnelId(),
+                                reservation.key.dailyMealId(),
+                                reservation.dailyMealDish.getId(),
+                                reservation.status().name(),
+                                !reservation.statusGiven,
+                                reservationTime,
+                                username,
+                                now,
+                                reservation.totalCost(),
+                                reservation.employeePortion(),
+                                reservation.totalCost().subtract(reservation.employeePortion()))
+                        .flatMap(reservationRepository::findById)
+                        .orElse(null);
+            }
+        }
+    }
+
+    private static boolean isUpdate(ReservationDto reservationDto) {
+        return reservationDto.getId() != null && reservationDto.getId() != 0;
+    }
+
+    private record MealKey(Long personnelId, Long dailyMealId) {
+        static MealKey of(Reservation reservation) {
+            return new MealKey(reservation.getPersonnel().getId(), reservation.getDailyMeal().getId());
+        }
+    }
+
+    /**
+     * A reservation a batch will insert, accumulating every item without an id for its meal; the first of
+     * them reports it as created and the others as updated.
+     * {@code reservation} is filled in once it has been written; it stays null when the meal turned out
+     * to hold a delivered reservation.
+     */
+    private static final class NewReservation {
+        private final MealKey key;
+        private final int firstIndex;
+        private DailyMealDish dailyMealDish;
+        private ReservationStatus status;
+        private boolean statusGiven;
+        private BigDecimal employeePortion;
+        private Reservation reservation;
+        private boolean merged;
+
+        private NewReservation(MealKey key, int firstIndex) {
+            this.key = key;
+            this.firstIndex = firstIndex;
+        }
+
+        void apply(DailyMealDish dailyMealDish, ReservationDto dto) {
+            this.dailyMealDish = dailyMealDish;
+            if (dto.getReservationStatus() != null) {
+                status = dto.getReservationStatus();
+                statusGiven = true;
+            }
+            if (dto.getCostShares() != null) {
+                employeePortion = dto.getCostShares();
+            }
+        }
+
+        ReservationStatus status() {
+            return status != null ? status : ReservationStatus.ACTIVE;
+        }
+
+        BigDecimal totalCost() {
+            return BigDecimal.valueOf(dailyMealDish.getDish().getPrice());
+        }
+
+        BigDecimal employeePortion() {
+            return employeePortion != null ? employeePortion : BigDecimal.ZERO;
+        }
     }
 
     // Additional helper method to check if a reservation already exists
@@ -271,10 +594,50 @@ public class ReservationService {
     }
 
     public List<DailyPersonnelReservationListDto> getReservationsByDate(LocalDate date) {
-        return reservationRepository.findByDailyMeal_Date(date)
-                .stream()
-                .map(dailyPersonnelReservationListMapper::toDto)
-                .toList();
+        return servingRosterService.servingList(date)
+                .orElseGet(() -> reservationRepository.findServingListByDate(date)
+                        .stream()
+                        .map(dailyPersonnelReservationListMapper::toDto)
+                        .toList());
+    }
+
+    /**
+     * Today's serving-list entry of an employee, from the serving roster once reservations have closed.
+     */
+    public DailyPersonnelReservationListDto getServingEntryByPersCode(String persCode) {
+        LocalDate today = LocalDate.now();
+        Optional<DailyPersonnelReservationListDto> entry = servingRosterService.covers(today)
+                ? servingRosterService.findByPersCode(persCode)
+                : findServingEntry(today, persCode, null);
+        return entry.orElseThrow(() -> new ResourceNotFoundException(
+                "No reservation on the serving list for personnel code: %s".formatted(persCode)));
+    }
+
+    public DailyPersonnelReservationListDto getServingEntryByPersonnelId(Long personnelId) {
+        LocalDate today = LocalDate.now();
+        Optional<DailyPersonnelReservationListDto> entry = servingRosterService.covers(today)
+                ? servingRosterService.findByPersonnelId(personnelId)
+                : findServingEntry(today, null, personnelId);
+        return entry.orElseThrow(() -> new ResourceNotFoundException(
+                "No reservation on the serving list for personnel id: %d".formatted(personnelId)));
+    }
+
+    /**
+     * Confirms today's delivery to an employee at the desk: in memory when the serving roster is built,
+     * otherwise with the guarded update of {@link #deliverReservation(Long)}.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ReservationStatusDto deliverByPersCode(String persCode) {
+        if (servingRosterService.covers(LocalDate.now())) {
+            return servingRosterService.deliver(persCode, currentUsername());
+        }
+        return deliverReservation(getServingEntryByPersCode(persCode).getId());
+    }
+
+    private Optional<DailyPersonnelReservationListDto> findServingEntry(LocalDate date, String persCode, Long personnelId) {
+        return reservationRepository.findServingListByDateAndPersonnel(date, persCode, personnelId).stream()
+                .findFirst()
+                .map(dailyPersonnelReservationListMapper::toDto);
     }
 
     public ResponseEntity<Void> delete(Long id) {
@@ -285,24 +648,116 @@ public class ReservationService {
 
     }
 
-    @Transactional
-    public ReservationDto deliverReservation(Long id) {
-        Reservation reservation = reservationRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Reservation not found with id: %d".formatted(id)));
+    /**
+     * Marks an active reservation delivered. Of two clerks confirming the same tray, only the first succeeds.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ReservationStatusDto deliverReservation(Long id) {
+        return transition(id, EnumSet.of(ReservationStatus.ACTIVE), ReservationStatus.DELIVERED);
+    }
 
-        // Use the deliver() method from the entity
-        reservation.deliver();
+    /**
+     * Takes back a delivery confirmed by mistake, returning the reservation to active.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ReservationStatusDto undeliverReservation(Long id) {
+        return transition(id, EnumSet.of(ReservationStatus.DELIVERED), ReservationStatus.ACTIVE);
+    }
 
-        return reservationMapper.toDto(reservationRepository.save(reservation));
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ReservationStatusDto cancelReservation(Long id) {
+        return transition(id, EnumSet.of(ReservationStatus.PENDING, ReservationStatus.ACTIVE), ReservationStatus.CANCELLED);
     }
-    @Transactional
-    public ReservationDto cancelReservation(Long id){
-        Reservation reservation = reservationRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Reservation not found with id: %d".formatted(id)));
 
-        reservation.active();
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ReservationStatusDto expireReservation(Long id) {
+        return transition(id, EnumSet.of(ReservationStatus.PENDING, ReservationStatus.ACTIVE), ReservationStatus.EXPIRED);
+    }
 
-        return reservationMapper.toDto(reservationRepository.save(reservation));
+    /**
+     * Marks many reservations delivered at once, for a desk confirming a whole tray line. Only active
+     * reservations are changed, in one statement; the remaining ids are then classified with one read.
+     * Runs outside any caller transaction so pending roster deliveries are written back first.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public DeliveryBatchResultDto deliverReservations(DeliveryBatchConfirmationRequest request) {
+        Set<Long> ids = new LinkedHashSet<>(request.getReservationIds());
+        ids.remove(null);
+        flushRosterDeliveries();
+        Instant now = Instant.now();
+        LocalDateTime deliveredAt = LocalDateTime.ofInstant(now, ZoneId.systemDefault());
+
+        DeliveryBatchResultDto result = transactionTemplate.execute(status ->
+                classifyDeliveries(ids, request.getDeliveredBy(), deliveredAt, now));
+        result.getDelivered().forEach(id -> servingRosterService.statusChanged(id, ReservationStatus.DELIVERED));
+        log.info("Batch delivery by {}: {} delivered, {} already delivered, {} not found, {} not deliverable",
+                request.getDeliveredBy(), result.getDelivered().size(), result.getAlreadyDelivered().size(),
+                result.getNotFound().size(), result.getNotDeliverable().size());
+        return result;
+    }
+
+    private DeliveryBatchResultDto classifyDeliveries(Set<Long> ids, String deliveredBy, LocalDateTime deliveredAt, Instant now) {
+        List<Long> delivered = ids.isEmpty()
+                ? List.of()
+                : reservationRepository.deliverActive(ids, deliveredBy, deliveredAt, currentUsername(), now);
+
+        Set<Long> remaining = new LinkedHashSet<>(ids);
+        delivered.forEach(remaining::remove);
+        Map<Long, ReservationStatus> statuses = remaining.isEmpty()
+                ? Map.of()
+                : reservationRepository.findStatusesByIdIn(remaining).stream()
+                        .collect(Collectors.toMap(ReservationStatusDto::getId, ReservationStatusDto::getReservationStatus));
+
+        List<Long> alreadyDelivered = new ArrayList<>();
+        List<Long> notFound = new ArrayList<>();
+        List<Long> notDeliverable = new ArrayList<>();
+        for (Long id : remaining) {
+            ReservationStatus status = statuses.get(id);
+            if (status == null) {
+                notFound.add(id);
+            } else if (status == ReservationStatus.DELIVERED) {
+                alreadyDelivered.add(id);
+            } else {
+                notDeliverable.add(id);
+            }
+        }
+        return new DeliveryBatchResultDto(deliveredBy, deliveredAt, delivered, alreadyDelivered, notFound, notDeliverable);
+    }
 
+    /**
+     * Changes the status with one guarded update, committed before the roster is told; the current
+     * status is only read to explain a refusal.
+     *
+     * @throws ResourceNotFoundException          if there is no such reservation
+     * @throws ReservationStatusConflictException if its status is not one of {@code from}
+     */
+    private ReservationStatusDto transition(Long id, Set<ReservationStatus> from, ReservationStatus to) {
+        flushRosterDeliveries();
+        Instant now = Instant.now();
+        String username = currentUsername();
+        boolean delivering = to == ReservationStatus.DELIVERED;
+        transactionTemplate.executeWithoutResult(status -> {
+            int updated = reservationRepository.transitionStatus(id, from, to,
+                    delivering ? username : null,
+                    delivering ? LocalDateTime.ofInstant(now, ZoneId.systemDefault()) : null,
+                    username, now);
+            if (updated == 0) {
+                ReservationStatus current = reservationRepository.findStatusById(id)
+                        .orElseThrow(() -> new ResourceNotFoundException("Reservation not found with id: %d".formatted(id)));
+                throw new ReservationStatusConflictException(id, current, to);
+            }
+        });
+        servingRosterService.statusChanged(id, to);
+        return new ReservationStatusDto(id, to, now);
+    }
+
+    /**
+     * Deliveries confirmed at the desk must reach the database before it is asked to change them again.
+     * Called before any transaction is opened, as the write-back commits on a connection of its own.
+     */
+    private void flushRosterDeliveries() {
+        if (servingRosterService.hasPendingDeliveries()) {
+            servingRosterService.flushDeliveries();
+        }
     }
-}
\ No newline at end of file
+}
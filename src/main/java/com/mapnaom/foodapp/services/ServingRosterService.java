@@ -0,0 +1,387 @@
+package com.mapnaom.foodapp.services;
+
+import com.mapnaom.foodapp.dtos.DailyPersonnelReservationListDto;
+import com.mapnaom.foodapp.dtos.DailyReservationsFingerprintDto;
+import com.mapnaom.foodapp.dtos.ReservationStatusDto;
+import com.mapnaom.foodapp.enums.ReservationStatus;
+import com.mapnaom.foodapp.exceptions.ReservationStatusConflictException;
+import com.mapnaom.foodapp.exceptions.ResourceNotFoundException;
+import com.mapnaom.foodapp.mappers.DailyPersonnelReservationListMapper;
+import com.mapnaom.foodapp.models.AppSetting;
+import com.mapnaom.foodapp.models.ReservationTime;
+import com.mapnaom.foodapp.repository.AppSettingRepository;
+import com.mapnaom.foodapp.repository.ReservationRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory serving list of the current day for the delivery desk.
+ * <p>
+ * Once the day's reservations close at {@code AppSetting.reservationTime}, the day is loaded with one
+ * query and indexed by personnel code, personnel id and reservation id, so a desk lookup is a map read.
+ * Deliveries confirmed through the roster change the entry's status in place with a compare-and-set and
+ * are written back in batches by a background flush, through a guarded update like batch delivery that
+ * keeps each delivery's own time.
+ * A periodic check compares the roster with a fingerprint of the day in the database and rebuilds it
+ * when reservations were added, removed, moved to another dish or changed status elsewhere.
+ * <p>
+ * Before closing time there is no roster and callers read the database.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ServingRosterService {
+
+    private final ReservationRepository reservationRepository;
+    private final AppSettingRepository appSettingRepository;
+    private final DailyPersonnelReservationListMapper dailyPersonnelReservationListMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.serving-roster.write-back-batch-size:500}")
+    private int writeBackBatchSize;
+
+    // Serializes building, checking and writing back; lookups and deliveries never take it
+    private final Object lock = new Object();
+    // Deliveries share it; swapping the roster takes it exclusively, so no delivery lands on a discarded roster
+    private final ReadWriteLock publishLock = new ReentrantReadWriteLock();
+    private final Queue<PendingDelivery> pendingDeliveries = new ConcurrentLinkedQueue<>();
+    private volatile Roster roster;
+    private volatile boolean stale;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("serving.roster.entries", this, s -> {
+                    Roster current = s.roster;
+                    return current == null ? 0 : current.entries().size();
+                })
+                .description("Reservations held in the serving roster")
+                .register(meterRegistry);
+        Gauge.builder("serving.roster.pending-writes", pendingDeliveries, Queue::size)
+                .description("Roster deliveries not yet written to the database")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return whether lookups for {@code date} are served from memory
+     */
+    public boolean covers(LocalDate date) {
+        Roster current = roster;
+        return current != null && current.date().equals(date);
+    }
+
+    /**
+     * @return the serving list of {@code date} with current statuses, or empty if there is no roster for it
+     */
+    public Optional<List<DailyPersonnelReservationListDto>> servingList(LocalDate date) {
+        Roster current = roster;
+        if (current == null || !current.date().equals(date)) {
+            return Optional.empty();
+        }
+        return Optional.of(current.entries().stream().map(RosterEntry::toDto).toList());
+    }
+
+    public Optional<DailyPersonnelReservationListDto> findByPersCode(String persCode) {
+        Roster current = roster;
+        return current == null ? Optional.empty() : Optional.ofNullable(current.byPersCode().get(persCode)).map(RosterEntry::toDto);
+    }
+
+    public Optional<DailyPersonnelReservationListDto> findByPersonnelId(Long personnelId) {
+        Roster current = roster;
+        return current == null ? Optional.empty() : Optional.ofNullable(current.byPersonnelId().get(personnelId)).map(RosterEntry::toDto);
+    }
+
+    /**
+     * Marks the reservation of {@code persCode} delivered in the roster; the database follows with the
+     * next write-back. Of two clerks confirming the same person, only the first succeeds.
+     *
+     * @throws ResourceNotFoundException          if the roster holds no reservation for {@code persCode}
+     * @throws ReservationStatusConflictException if the reservation is not active
+     */
+    public ReservationStatusDto deliver(String persCode, String deliveredBy) {
+        publishLock.readLock().lock();
+        try {
+            Roster current = roster;
+            RosterEntry entry = current == null ? null : current.byPersCode().get(persCode);
+            if (entry == null) {
+                throw new ResourceNotFoundException("No reservation on the serving list for personnel code: %s".formatted(persCode));
+            }
+            Long id = entry.reservation().getId();
+            ReservationStatus previous = entry.status().compareAndExchange(ReservationStatus.ACTIVE, ReservationStatus.DELIVERED);
+            if (previous != ReservationStatus.ACTIVE) {
+                throw new ReservationStatusConflictException(id, previous, ReservationStatus.DELIVERED);
+            }
+            Instant now = Instant.now();
+            pendingDeliveries.add(new PendingDelivery(id, deliveredBy, LocalDateTime.ofInstant(now, ZoneId.systemDefault())));
+            return new ReservationStatusDto(id, ReservationStatus.DELIVERED, now);
+        } finally {
+            publishLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a status change made in the database to the roster entry of the reservation, if any. Inside a
+     * transaction the entry changes once it commits.
+     */
+    public void statusChanged(Long reservationId, ReservationStatus status) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyStatus(reservationId, status);
+                }
+            });
+        } else {
+            applyStatus(reservationId, status);
+        }
+    }
+
+    private void applyStatus(Long reservationId, ReservationStatus status) {
+        Roster current = roster;
+        RosterEntry entry = current == null ? null : current.byReservationId().get(reservationId);
+        if (entry != null) {
+            entry.status().set(status);
+        }
+    }
+
+    public boolean hasPendingDeliveries() {
+        return !pendingDeliveries.isEmpty();
+    }
+
+    /**
+     * Writes roster deliveries to the database, {@code application.serving-roster.write-back-batch-size}
+     * per statement. A batch that fails stays queued for the next run.
+     * <p>
+     * Must not be called inside a transaction: it takes the roster lock and a connection of its own.
+     */
+    @Scheduled(fixedDelayString = "${application.serving-roster.write-back-interval:PT2S}")
+    public void flushDeliveries() {
+        synchronized (lock) {
+            flushPending();
+        }
+    }
+
+    /**
+     * Deliveries confirmed at the desk exist only in memory until written back, so they are written
+     * before the application stops.
+     */
+    @PreDestroy
+    void shutdown() {
+        flushDeliveries();
+        if (!pendingDeliveries.isEmpty()) {
+            log.error("{} roster deliveries could not be written back before shutdown", pendingDeliveries.size());
+        }
+    }
+
+    /**
+     * Builds the roster once reservations have closed, drops it when the day is over and rebuilds it
+     * when the day's reservations no longer match it.
+     */
+    @Scheduled(fixedDelayString = "${application.serving-roster.refresh-interval:PT30S}")
+    public void refresh() {
+        synchronized (lock) {
+            flushPending();
+            LocalDate today = LocalDate.now();
+            Roster current = roster;
+            if (!reservationsClosed(today)) {
+                if (current != null) {
+                    log.info("Serving roster for {} released", current.date());
+                    publish(null);
+                }
+                return;
+            }
+            if (current != null && current.date().equals(today) && !stale) {
+                Map<ReservationStatus, DailyReservationsFingerprintDto> expected = current.fingerprint();
+                Map<ReservationStatus, DailyReservationsFingerprintDto> actual = reservationRepository.fingerprintByDate(today).stream()
+                        .collect(Collectors.toMap(DailyReservationsFingerprintDto::getReservationStatus, Function.identity()));
+                // A delivery confirmed meanwhile would show as a difference; compare again next time
+                if (expected.equals(actual) || !pendingDeliveries.isEmpty()) {
+                    return;
+                }
+                log.info("Reservations of {} changed; rebuilding the serving roster", today);
+            }
+            stale = false;
+            publish(build(today));
+        }
+    }
+
+    /**
+     * Replaces the roster. Deliveries still waiting for write-back were read from the database as active,
+     * so they are applied to the new roster first; deliveries in progress finish on the old one beforehand.
+     */
+    private void publish(Roster next) {
+        publishLock.writeLock().lock();
+        try {
+            if (next != null) {
+                for (PendingDelivery delivery : pendingDeliveries) {
+                    RosterEntry entry = next.byReservationId().get(delivery.reservationId());
+                    if (entry != null) {
+                        entry.status().set(ReservationStatus.DELIVERED);
+                    }
+                }
+            }
+            roster = next;
+        } finally {
+            publishLock.writeLock().unlock();
+        }
+    }
+
+    private void flushPending() {
+        while (!pendingDeliveries.isEmpty()) {
+            List<PendingDelivery> batch = new ArrayList<>();
+            PendingDelivery next;
+            while (batch.size() < writeBackBatchSize && (next = pendingDeliveries.poll()) != null) {
+                batch.add(next);
+            }
+            try {
+                writeBack(batch);
+            } catch (RuntimeException e) {
+                // Includes TransactionException when the database cannot be reached, not only DataAccessException
+                log.warn("Could not write back {} roster deliveries; retrying later", batch.size(), e);
+                pendingDeliveries.addAll(batch);
+                return;
+            }
+        }
+    }
+
+    private void writeBack(List<PendingDelivery> batch) {
+        Map<String, List<PendingDelivery>> byClerk = new HashMap<>();
+        for (PendingDelivery delivery : batch) {
+            byClerk.computeIfAbsent(delivery.deliveredBy(), clerk -> new ArrayList<>()).add(delivery);
+        }
+        transactionTemplate.executeWithoutResult(status -> byClerk.forEach((clerk, deliveries) -> {
+            Long[] ids = deliveries.stream().map(PendingDelivery::reservationId).toArray(Long[]::new);
+            LocalDateTime[] deliveredAts = deliveries.stream().map(PendingDelivery::deliveredAt).toArray(LocalDateTime[]::new);
+            List<Long> written = reservationRepository.deliverActiveAt(ids, deliveredAts, clerk, clerk, Instant.now());
+            if (written.size() < ids.length) {
+                // Changed in the database since the roster was built; the next refresh reloads it
+                log.warn("{} of {} roster deliveries were no longer active in the database", ids.length - written.size(), ids.length);
+                stale = true;
+            }
+        }));
+    }
+
+    private boolean reservationsClosed(LocalDate today) {
+        ReservationTime closing = appSettingRepository.findById(AppSetting.SINGLETON_ID)
+                .map(AppSetting::getReservationTime)
+                .orElse(null);
+        LocalTime closesAt = closing == null || closing.getHour() == null
+                ? LocalTime.MIDNIGHT
+                : LocalTime.of(closing.getHour(), closing.getMinute() == null ? 0 : closing.getMinute());
+        return !LocalDateTime.now().isBefore(today.atTime(closesAt));
+    }
+
+    private Roster build(LocalDate date) {
+        List<RosterEntry> entries = transactionTemplate.execute(status ->
+                reservationRepository.findServingListByDate(date).stream()
+                        .map(dailyPersonnelReservationListMapper::toDto)
+                        .map(RosterEntry::new)
+                        .toList());
+        Roster built = Roster.of(date, entries);
+        log.info("Serving roster for {} built with {} reservations", date, built.entries().size());
+        return built;
+    }
+
+    /**
+     * One day's reservations and their indexes. Only the entries' statuses ever change.
+     */
+    private record Roster(LocalDate date,
+                          List<RosterEntry> entries,
+                          Map<String, RosterEntry> byPersCode,
+                          Map<Long, RosterEntry> byPersonnelId,
+                          Map<Long, RosterEntry> byReservationId) {
+
+        static Roster of(LocalDate date, List<RosterEntry> entries) {
+            Map<String, RosterEntry> byPersCode = new HashMap<>();
+            Map<Long, RosterEntry> byPersonnelId = new HashMap<>();
+            Map<Long, RosterEntry> byReservationId = new HashMap<>();
+            for (RosterEntry entry : entries) {
+                DailyPersonnelReservationListDto reservation = entry.reservation();
+                if (reservation.getPersonnelPersCode() != null) {
+                    byPersCode.putIfAbsent(reservation.getPersonnelPersCode(), entry);
+                }
+                if (reservation.getPersonnelId() != null) {
+                    byPersonnelId.putIfAbsent(reservation.getPersonnelId(), entry);
+                }
+                byReservationId.put(reservation.getId(), entry);
+            }
+            return new Roster(date, List.copyOf(entries), Map.copyOf(byPersCode), Map.copyOf(byPersonnelId),
+                    Map.copyOf(byReservationId));
+        }
+
+        /**
+         * The fingerprint the database should report for this day, per status, if nothing changed outside the roster.
+         */
+        Map<ReservationStatus, DailyReservationsFingerprintDto> fingerprint() {
+            Map<ReservationStatus, DailyReservationsFingerprintDto> byStatus = new EnumMap<>(ReservationStatus.class);
+            for (RosterEntry entry : entries) {
+                ReservationStatus status = entry.status().get();
+                DailyReservationsFingerprintDto totals = byStatus.computeIfAbsent(status,
+                        s -> new DailyReservationsFingerprintDto(s, 0L, 0L, 0L));
+                Long dishId = entry.reservation().getDailyMealDishDishId();
+                totals.setCount(totals.getCount() + 1);
+                totals.setIdSum(totals.getIdSum() + entry.reservation().getId());
+                totals.setDishIdSum(totals.getDishIdSum() + (dishId == null ? 0 : dishId));
+            }
+            return byStatus;
+        }
+    }
+
+    /**
+     * A reservation as loaded, which is never handed out, and its live status.
+     */
+    private record RosterEntry(DailyPersonnelReservationListDto reservation, AtomicReference<ReservationStatus> status) {
+
+        RosterEntry(DailyPersonnelReservationListDto reservation) {
+            this(reservation, new AtomicReference<>(reservation.getReservationStatus()));
+        }
+
+        DailyPersonnelReservationListDto toDto() {
+            return new DailyPersonnelReservationListDto(
+                    reservation.getId(),
+                    reservation.getPersonnelId(),
+                    reservation.getPersonnelPersCode(),
+                    reservation.getPersonnelFirstName(),
+                    reservation.getPersonnelLastName(),
+                    reservation.getDailyMealDishDishName(),
+                    reservation.getDailyMealDishDishId(),
+                    reservation.getDailyMealId(),
+                    reservation.getDailyMealDate(),
+                    reservation.getDailyMealDishDishPrice(),
+                    reservation.getCostShares(),
+                    status.get());
+        }
+    }
+
+    private record PendingDelivery(Long reservationId, String deliveredBy, LocalDateTime deliveredAt) {
+    }
+}
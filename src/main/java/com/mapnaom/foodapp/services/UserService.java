@@ -6,8 +6,11 @@ import com.mapnaom.foodapp.entities.User;
 import com.mapnaom.foodapp.mappers.UserMapper;
 import com.mapnaom.foodapp.repository.UserRepository;
 import com.mapnaom.foodapp.searchForms.UserSearchForm;
+import com.mapnaom.foodapp.service.TokenRevocationService;
+import com.mapnaom.foodapp.service.UserCacheService;
 import com.mapnaom.foodapp.specifications.UserSpecification;
 import com.mapnaom.foodapp.utils.ExcelUtil;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.apache.poi.ss.usermodel.*;
@@ -22,7 +25,9 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -32,6 +37,9 @@ public class UserService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final ExcelUtil excelUtil;
+    private final TokenRevocationService tokenRevocationService;
+    private final UserCacheService userCacheService;
+    private final EntityManager entityManager;
 
     public UserDto createUser(UserDto userDto) {
         User user = userMapper.toEntity(userDto);
@@ -43,14 +51,16 @@ public class UserService {
         User user = userRepository.findById(id).orElseThrow(() -> new EntityNotFoundException("User not found"));
         userMapper.toEntity(userDto); // Map updated fields
         User updatedUser = userRepository.save(user);
+        userCacheService.evict(updatedUser);
+        tokenRevocationService.revokeAllForUser(id);
         return userMapper.toDto(updatedUser);
     }
 
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new EntityNotFoundException("User not found");
-        }
-        userRepository.deleteById(id);
+        User user = userRepository.findById(id).orElseThrow(() -> new EntityNotFoundException("User not found"));
+        userRepository.delete(user);
+        userCacheService.evict(user);
+        tokenRevocationService.revokeAllForUser(id);
     }
 
     public Page<UserDto> searchUsers(UserSearchForm searchForm, int page, int size, String sortBy, String order) {
@@ -84,6 +94,23 @@ public class UserService {
         }
     }
 
+    /**
+     * Writes all users to {@code out} as UTF-8 CSV. Password hashes and roles are left blank.
+     * Rows are streamed from the database and detached once mapped, so the export size is not
+     * bounded by heap.
+     */
+    @Transactional(readOnly = true)
+    public void exportUsersToCsv(OutputStream out) throws IOException {
+        try (Stream<UserDto> users = userRepository.streamAllForExport()
+                .map(user -> {
+                    UserDto dto = userMapper.toDto(user);
+                    entityManager.detach(user);
+                    return dto.setPassword(null).setRoles(null);
+                })) {
+            excelUtil.generateCsv(users, UserDto.class, null, out);
+        }
+    }
+
     public void importUsersFromExcel(MultipartFile file) throws IOException, ExcelUtil.ExcelProcessingException {
         List<User> users = excelUtil.processExcel(file, User.class);
         userRepository.saveAll(users);
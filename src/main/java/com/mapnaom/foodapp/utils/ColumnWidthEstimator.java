@@ -0,0 +1,69 @@
+package com.mapnaom.foodapp.utils;
+
+import org.apache.poi.ss.usermodel.Sheet;
+
+/**
+ * Estimates column widths from the text written into each column, as a cheap replacement
+ * for {@link Sheet#autoSizeColumn(int)}, which lays out every cell with AWT font metrics.
+ * <p>
+ * Widths are counted in average character widths, the unit Excel uses for columns.
+ * Arabic-script letters count slightly wider than Latin ones, zero-width joiners and
+ * diacritics (common in Persian text) count as nothing, and East Asian wide characters count double.
+ */
+final class ColumnWidthEstimator {
+
+    private static final int MAX_COLUMN_WIDTH = 255 * 256;
+    private static final double PADDING = 2;
+    private static final double ARABIC_SCRIPT_WIDTH = 1.2;
+    private static final double WIDE_CHARACTER_WIDTH = 2;
+
+    private final double[] widths;
+
+    ColumnWidthEstimator(int columnCount) {
+        this.widths = new double[columnCount];
+    }
+
+    void record(int column, CharSequence text) {
+        record(column, displayWidth(text));
+    }
+
+    void record(int column, double width) {
+        if (width > widths[column]) {
+            widths[column] = width;
+        }
+    }
+
+    void applyTo(Sheet sheet) {
+        for (int i = 0; i < widths.length; i++) {
+            int width = (int) Math.ceil((widths[i] + PADDING) * 256);
+            sheet.setColumnWidth(i, Math.min(width, MAX_COLUMN_WIDTH));
+        }
+    }
+
+    static double displayWidth(CharSequence text) {
+        double width = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = Character.codePointAt(text, i);
+            width += characterWidth(codePoint);
+            i += Character.charCount(codePoint);
+        }
+        return width;
+    }
+
+    private static double characterWidth(int codePoint) {
+        int type = Character.getType(codePoint);
+        if (type == Character.NON_SPACING_MARK || type == Character.ENCLOSING_MARK || type == Character.FORMAT) {
+            return 0;
+        }
+
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        if (script == Character.UnicodeScript.ARABIC) {
+            return ARABIC_SCRIPT_WIDTH;
+        }
+        if (script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL) {
+            return WIDE_CHARACTER_WIDTH;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,134 @@
+package com.mapnaom.foodapp.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Streaming reader for RFC 4180 CSV in UTF-8, the CSV counterpart of {@link XlsxStreamingReader}.
+ * <p>
+ * Input is scanned through one reused character buffer and field builder, so the only
+ * per-row allocations are the field values themselves. A leading byte order mark, as written
+ * by Excel when saving Persian text as "CSV UTF-8", is skipped. Quoted fields may contain
+ * commas, doubled quotes and line breaks; records may end in CRLF or LF.
+ */
+final class CsvReader {
+
+    private static final char DELIMITER = ',';
+    private static final char QUOTE = '"';
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder field = new StringBuilder(64);
+    private int position;
+    private int limit;
+    private int recordIndex = -1;
+    private boolean started;
+
+    private CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads every record of {@code inputStream} and hands the non-blank ones to {@code listener},
+     * with the same row-index and cell conventions as {@link XlsxStreamingReader#read}.
+     * The cell map is reused for the next record, so listeners must not keep it.
+     */
+    static void read(InputStream inputStream, XlsxStreamingReader.RowListener listener)
+            throws IOException, ExcelUtil.ExcelProcessingException {
+        CsvReader csv = new CsvReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        Map<Integer, String> cells = new HashMap<>();
+        while (csv.readRecord(cells)) {
+            if (!cells.isEmpty()) {
+                listener.onRow(csv.recordIndex, cells);
+            }
+            cells.clear();
+        }
+    }
+
+    /**
+     * Reads the next record into {@code cells}, keyed by zero-based column; blank fields are left out.
+     *
+     * @return false once the input is exhausted
+     */
+    private boolean readRecord(Map<Integer, String> cells) throws IOException, ExcelUtil.ExcelProcessingException {
+        if (!started) {
+            started = true;
+            if (fill() && buffer[position] == BYTE_ORDER_MARK) {
+                position++;
+            }
+        }
+        if (position >= limit && !fill()) {
+            return false;
+        }
+
+        recordIndex++;
+        int column = 0;
+        boolean quoted = false;
+        boolean afterQuote = false;
+        field.setLength(0);
+
+        while (position < limit || fill()) {
+            char c = buffer[position++];
+            if (quoted) {
+                if (c != QUOTE) {
+                    field.append(c);
+                } else if ((position < limit || fill()) && buffer[position] == QUOTE) {
+                    field.append(QUOTE);
+                    position++;
+                } else {
+                    quoted = false;
+                    afterQuote = true;
+                }
+            } else if (c == DELIMITER) {
+                addField(cells, column++);
+                afterQuote = false;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && (position < limit || fill()) && buffer[position] == '\n') {
+                    position++;
+                }
+                addField(cells, column);
+                return true;
+            } else if (c == QUOTE && field.isEmpty() && !afterQuote) {
+                quoted = true;
+            } else {
+                // Text after a closing quote is kept as written, as Excel does
+                field.append(c);
+            }
+        }
+
+        if (quoted) {
+            throw new ExcelUtil.ExcelProcessingException(
+                    "Unterminated quoted field in CSV record " + (recordIndex + 1));
+        }
+        addField(cells, column);
+        return true;
+    }
+
+    private void addField(Map<Integer, String> cells, int column) {
+        if (!field.isEmpty() && !isBlank(field)) {
+            cells.put(column, field.toString());
+        }
+        field.setLength(0);
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+
+    private static boolean isBlank(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i))) return false;
+        }
+        return true;
+    }
+}
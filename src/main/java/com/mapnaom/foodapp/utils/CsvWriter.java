@@ -0,0 +1,74 @@
+package com.mapnaom.foodapp.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes RFC 4180 CSV in UTF-8 with a byte order mark, which Excel needs to open Persian
+ * text correctly. Fields are quoted only when they contain a delimiter, quote or line break.
+ */
+final class CsvWriter {
+
+    private static final char DELIMITER = ',';
+    private static final char QUOTE = '"';
+    private static final String RECORD_SEPARATOR = "\r\n";
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final Writer writer;
+    private boolean firstField = true;
+
+    CsvWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        writer.write(BYTE_ORDER_MARK);
+    }
+
+    void writeField(String value) throws IOException {
+        if (!firstField) {
+            writer.write(DELIMITER);
+        }
+        firstField = false;
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        if (!needsQuoting(value)) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write(QUOTE);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == QUOTE) {
+                writer.write(QUOTE);
+            }
+            writer.write(c);
+        }
+        writer.write(QUOTE);
+    }
+
+    void endRecord() throws IOException {
+        writer.write(RECORD_SEPARATOR);
+        firstField = true;
+    }
+
+    /**
+     * Flushes buffered output without closing {@code out}, which belongs to the caller.
+     */
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+    private static boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == DELIMITER || c == QUOTE || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,210 @@
+package com.mapnaom.foodapp.utils;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Columns of a DTO class as seen by {@link ExcelUtil}, resolved once per class.
+ * <p>
+ * Every field is compiled into method handles for reading and writing, so mapping a row
+ * costs one handle call per cell instead of a reflective lookup. Header names are matched
+ * through a table keyed by the normalized field name.
+ */
+final class ExcelBeanMetadata<T> {
+
+    private static final Map<Class<?>, ExcelBeanMetadata<?>> CACHE = new ConcurrentHashMap<>();
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-zA-Z0-9]");
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<T> type;
+    private final MethodHandle constructor;
+    private final List<Column> columns;
+    private final Map<String, Column> columnsByHeader;
+
+    @SuppressWarnings("unchecked")
+    static <T> ExcelBeanMetadata<T> of(Class<T> type) {
+        return (ExcelBeanMetadata<T>) CACHE.computeIfAbsent(type, ExcelBeanMetadata::new);
+    }
+
+    private ExcelBeanMetadata(Class<T> type) {
+        this.type = type;
+        MethodHandles.Lookup lookup = lookupFor(type);
+        this.constructor = findConstructor(lookup, type);
+
+        List<Column> resolved = new ArrayList<>();
+        Map<String, Column> byHeader = new HashMap<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) continue;
+
+                Column column = new Column(field, lookup);
+                resolved.add(column);
+                byHeader.putIfAbsent(normalize(field.getName()), column);
+            }
+        }
+        this.columns = Collections.unmodifiableList(resolved);
+        this.columnsByHeader = byHeader;
+    }
+
+    static String normalize(String name) {
+        return NON_ALPHANUMERIC.matcher(name).replaceAll("").toLowerCase();
+    }
+
+    List<Column> columns() {
+        return columns;
+    }
+
+    /**
+     * @return the column whose field name matches {@code header} once both are normalized, or null
+     */
+    Column findByHeader(String header) {
+        return columnsByHeader.get(normalize(header));
+    }
+
+    T newInstance() {
+        if (constructor == null) {
+            throw new IllegalStateException("No accessible no-arg constructor in " + type.getName());
+        }
+        try {
+            return type.cast(constructor.invokeExact());
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Cannot instantiate " + type.getName(), t);
+        }
+    }
+
+    private static MethodHandles.Lookup lookupFor(Class<?> type) {
+        try {
+            return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            return MethodHandles.publicLookup();
+        }
+    }
+
+    private static MethodHandle findConstructor(MethodHandles.Lookup lookup, Class<?> type) {
+        try {
+            return lookup.findConstructor(type, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            // Export-only types do not need to be instantiable
+            return null;
+        }
+    }
+
+    static final class Column {
+        private final String name;
+        private final Class<?> type;
+        private final boolean required;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        private Column(Field field, MethodHandles.Lookup lookup) {
+            this.name = field.getName();
+            this.type = field.getType();
+            this.required = field.getAnnotation(ExcelUtil.Required.class) != null
+                    || field.getAnnotation(NotNull.class) != null;
+            this.getter = resolveGetter(field, lookup);
+            this.setter = resolveSetter(field, lookup);
+        }
+
+        String name() {
+            return name;
+        }
+
+        Class<?> type() {
+            return type;
+        }
+
+        boolean required() {
+            return required;
+        }
+
+        Object get(Object bean) {
+            if (getter == null) return null;
+            try {
+                return (Object) getter.invokeExact(bean);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException("Cannot read field " + name, t);
+            }
+        }
+
+        void set(Object bean, Object value) {
+            if (setter == null) {
+                throw new IllegalArgumentException("Field " + name + " is not writable");
+            }
+            if (value == null && type.isPrimitive()) {
+                throw new IllegalArgumentException("Invalid or missing value for field " + name);
+            }
+            try {
+                setter.invokeExact(bean, value);
+            } catch (ClassCastException e) {
+                throw new IllegalArgumentException("Cannot assign " + value.getClass().getSimpleName()
+                        + " to field " + name + " of type " + type.getSimpleName());
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException("Cannot write field " + name, t);
+            }
+        }
+
+        private static MethodHandle resolveGetter(Field field, MethodHandles.Lookup lookup) {
+            try {
+                return lookup.unreflectGetter(field).asType(GETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                Method getter = findAccessor(field.getDeclaringClass(), "get" + capitalize(field.getName()));
+                if (getter == null && (field.getType() == boolean.class || field.getType() == Boolean.class)) {
+                    getter = findAccessor(field.getDeclaringClass(), "is" + capitalize(field.getName()));
+                }
+                return getter != null ? unreflect(lookup, getter, GETTER_TYPE) : null;
+            }
+        }
+
+        private static MethodHandle resolveSetter(Field field, MethodHandles.Lookup lookup) {
+            try {
+                return lookup.unreflectSetter(field).asType(SETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                Method setter = findAccessor(field.getDeclaringClass(), "set" + capitalize(field.getName()),
+                        field.getType());
+                return setter != null ? unreflect(lookup, setter, SETTER_TYPE) : null;
+            }
+        }
+
+        private static Method findAccessor(Class<?> owner, String name, Class<?>... parameterTypes) {
+            try {
+                return owner.getMethod(name, parameterTypes);
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+
+        private static MethodHandle unreflect(MethodHandles.Lookup lookup, Method method, MethodType type) {
+            try {
+                // Chained setters return the bean; asType drops the result
+                return lookup.unreflect(method).asType(type);
+            } catch (IllegalAccessException e) {
+                return null;
+            }
+        }
+
+        private static String capitalize(String str) {
+            return str.substring(0, 1).toUpperCase() + str.substring(1);
+        }
+    }
+}
@@ -3,69 +3,105 @@ package com.mapnaom.foodapp.utils;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.usermodel.Font;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Cell styles for one workbook. Each style is created on first use and then shared,
+ * since a workbook holds at most 64,000 styles and every cell may ask for one.
+ */
 public class ExcelStyleUtil {
     private final Workbook workbook;
+    private final Map<String, CellStyle> styles = new HashMap<>();
+    private DataFormat dataFormat;
 
     public ExcelStyleUtil(Workbook workbook) {
         this.workbook = workbook;
     }
 
     public CellStyle getHeaderStyle() {
-        CellStyle style = workbook.createCellStyle();
-        Font font = workbook.createFont();
-        font.setBold(true);
-        style.setFont(font);
-        style.setAlignment(HorizontalAlignment.CENTER);
-        style.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-        style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        return style;
+        return style("header", () -> {
+            CellStyle style = workbook.createCellStyle();
+            Font font = workbook.createFont();
+            font.setBold(true);
+            style.setFont(font);
+            style.setAlignment(HorizontalAlignment.CENTER);
+            style.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+            style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            return style;
+        });
     }
 
     public CellStyle getDataStyle() {
-        CellStyle style = workbook.createCellStyle();
-        style.setAlignment(HorizontalAlignment.CENTER);
-        return style;
+        return style("data", () -> {
+            CellStyle style = workbook.createCellStyle();
+            style.setAlignment(HorizontalAlignment.CENTER);
+            return style;
+        });
     }
 
     public CellStyle getDataStyleLeft() {
-        CellStyle style = workbook.createCellStyle();
-        style.setAlignment(HorizontalAlignment.LEFT);
-        return style;
+        return style("data-left", () -> {
+            CellStyle style = workbook.createCellStyle();
+            style.setAlignment(HorizontalAlignment.LEFT);
+            return style;
+        });
     }
 
     public CellStyle getPriceStyle() {
-        CellStyle style = workbook.createCellStyle();
-        DataFormat format = workbook.createDataFormat();
-        style.setDataFormat(format.getFormat("#,##0"));
-        style.setAlignment(HorizontalAlignment.RIGHT);
-        return style;
+        return style("price", () -> {
+            CellStyle style = workbook.createCellStyle();
+            style.setDataFormat(dataFormat().getFormat("#,##0"));
+            style.setAlignment(HorizontalAlignment.RIGHT);
+            return style;
+        });
     }
 
     public CellStyle getDecimalStyle(int decimals) {
-        CellStyle style = workbook.createCellStyle();
-        DataFormat format = workbook.createDataFormat();
-        StringBuilder pattern = new StringBuilder("#,##0");
-        if (decimals > 0) {
-            pattern.append(".");
-            for (int i = 0; i < decimals; i++) pattern.append("0");
-        }
-        style.setDataFormat(format.getFormat(pattern.toString()));
-        style.setAlignment(HorizontalAlignment.RIGHT);
-        return style;
+        return style("decimal:" + decimals, () -> {
+            CellStyle style = workbook.createCellStyle();
+            StringBuilder pattern = new StringBuilder("#,##0");
+            if (decimals > 0) {
+                pattern.append(".");
+                for (int i = 0; i < decimals; i++) pattern.append("0");
+            }
+            style.setDataFormat(dataFormat().getFormat(pattern.toString()));
+            style.setAlignment(HorizontalAlignment.RIGHT);
+            return style;
+        });
     }
 
     public CellStyle getDateStyle(String dateFormat) {
-        CellStyle style = workbook.createCellStyle();
-        DataFormat format = workbook.createDataFormat();
-        style.setDataFormat(format.getFormat(dateFormat));
-        style.setAlignment(HorizontalAlignment.CENTER);
-        return style;
+        return style("date:" + dateFormat, () -> {
+            CellStyle style = workbook.createCellStyle();
+            style.setDataFormat(dataFormat().getFormat(dateFormat));
+            style.setAlignment(HorizontalAlignment.CENTER);
+            return style;
+        });
     }
 
     public CellStyle getBooleanStyle() {
-        CellStyle style = workbook.createCellStyle();
-        style.setAlignment(HorizontalAlignment.CENTER);
+        return style("boolean", () -> {
+            CellStyle style = workbook.createCellStyle();
+            style.setAlignment(HorizontalAlignment.CENTER);
+            return style;
+        });
+    }
+
+    private CellStyle style(String key, Supplier<CellStyle> factory) {
+        CellStyle style = styles.get(key);
+        if (style == null) {
+            style = factory.get();
+            styles.put(key, style);
+        }
         return style;
     }
-}
 
+    private DataFormat dataFormat() {
+        if (dataFormat == null) {
+            dataFormat = workbook.createDataFormat();
+        }
+        return dataFormat;
+    }
+}
@@ -1,9 +1,12 @@
 package com.mapnaom.foodapp.utils;
 
-import jakarta.validation.constraints.NotNull;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -11,15 +14,19 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
+import java.math.BigDecimal;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Stream;
 
 @Component
 public class ExcelUtil {
@@ -28,6 +35,14 @@ public class ExcelUtil {
     private static final String DATETIME_FORMAT = "yyyy-MM-dd HH:mm:ss";
     private static final int DEFAULT_SHEET_INDEX = 0;
     private static final int DEFAULT_HEADER_ROW_INDEX = 0;
+    private static final int STREAMING_ROW_WINDOW = 100;
+
+    @Value("${application.excel.import.parallelism:0}")
+    private int importParallelism;
+    @Value("${application.excel.import.chunk-size:500}")
+    private int importChunkSize;
+
+    private ForkJoinPool importPool;
 
     // ==================== IMPORT METHODS ====================
 
@@ -40,10 +55,7 @@ public class ExcelUtil {
         validateFileInput(file);
 
         try (InputStream inputStream = file.getInputStream()) {
-            Workbook workbook = createWorkbook(inputStream, file.getOriginalFilename());
-            Sheet sheet = getSheet(workbook, sheetIndex);
-            Map<String, Integer> headerMap = validateAndMapHeaders(sheet, clazz, headerRowIndex);
-            return processDataRows(sheet, clazz, headerMap, headerRowIndex + 1);
+            return processExcel(inputStream, importFilename(file), clazz, sheetIndex, headerRowIndex);
         }
     }
 
@@ -56,10 +68,87 @@ public class ExcelUtil {
                                     int sheetIndex, int headerRowIndex)
             throws IOException, ExcelProcessingException {
 
-        Workbook workbook = createWorkbook(inputStream, filename);
-        Sheet sheet = getSheet(workbook, sheetIndex);
-        Map<String, Integer> headerMap = validateAndMapHeaders(sheet, clazz, headerRowIndex);
-        return processDataRows(sheet, clazz, headerMap, headerRowIndex + 1);
+        List<T> result = new ArrayList<>();
+        processExcel(inputStream, filename, clazz, sheetIndex, headerRowIndex, result::add);
+        return result;
+    }
+
+    public <T> void processExcel(MultipartFile file, Class<T> clazz, Consumer<T> rowConsumer)
+            throws IOException, ExcelProcessingException {
+
+        validateFileInput(file);
+
+        try (InputStream inputStream = file.getInputStream()) {
+            processExcel(inputStream, importFilename(file), clazz,
+                    DEFAULT_SHEET_INDEX, DEFAULT_HEADER_ROW_INDEX, rowConsumer);
+        }
+    }
+
+    /**
+     * Map each data row to a DTO and hand it to {@code rowConsumer} as soon as it is read.
+     * <p>
+     * .xlsx files are parsed event by event, so memory use does not depend on the file size;
+     * .xls files still go through the POI DOM model. Rows that fail conversion are skipped and
+     * reported together in an {@link ExcelProcessingException} once the sheet is exhausted,
+     * after the valid rows have already been consumed.
+     */
+    public <T> void processExcel(InputStream inputStream, String filename, Class<T> clazz,
+                                 int sheetIndex, int headerRowIndex, Consumer<T> rowConsumer)
+            throws IOException, ExcelProcessingException {
+
+        ExcelBeanMetadata<T> metadata = ExcelBeanMetadata.of(clazz);
+        List<ExcelError> errors = new ArrayList<>();
+
+        readRows(inputStream, filename, metadata, sheetIndex, headerRowIndex, row -> {
+            try {
+                rowConsumer.accept(toDTO(metadata, row));
+            } catch (Exception e) {
+                errors.add(new ExcelError(row.rowNumber, e.getMessage()));
+            }
+        });
+
+        if (!errors.isEmpty()) {
+            throw new ExcelProcessingException("Errors processing rows", errors);
+        }
+    }
+
+    /**
+     * Like {@link #processExcel(InputStream, String, Class, int, int, Consumer)}, but rows are
+     * converted and passed through {@code validator} in parallel, in chunks, on a bounded
+     * fork-join pool. {@code rowConsumer} still runs on the calling thread and receives each
+     * row with its 1-based row number in sheet order; row errors are reported in sheet order as well.
+     * <p>
+     * With {@link ImportOptions#isStopOnError()} the first failing row ends the import and
+     * no later row reaches the consumer. {@code validator} must be thread-safe.
+     */
+    public <T> void processExcel(MultipartFile file, Class<T> clazz, ImportOptions options,
+                                 RowValidator<T> validator, ObjIntConsumer<T> rowConsumer)
+            throws IOException, ExcelProcessingException {
+
+        validateFileInput(file);
+
+        try (InputStream inputStream = file.getInputStream()) {
+            processExcel(inputStream, importFilename(file), clazz, options, validator, rowConsumer);
+        }
+    }
+
+    public <T> void processExcel(InputStream inputStream, String filename, Class<T> clazz, ImportOptions options,
+                                 RowValidator<T> validator, ObjIntConsumer<T> rowConsumer)
+            throws IOException, ExcelProcessingException {
+
+        ExcelBeanMetadata<T> metadata = ExcelBeanMetadata.of(clazz);
+        ParallelRowPipeline<RawRow, T> pipeline = new ParallelRowPipeline<>(
+                importPool, importChunkSize, importPool.getParallelism() * 2, options.isStopOnError(),
+                row -> {
+                    T dto = toDTO(metadata, row);
+                    validator.validate(dto);
+                    return dto;
+                },
+                rowConsumer);
+
+        readRows(inputStream, filename, metadata, options.getSheetIndex(), options.getHeaderRowIndex(),
+                row -> pipeline.add(row.rowNumber, row));
+        pipeline.finish();
     }
 
     // ==================== EXPORT METHODS ====================
@@ -77,25 +166,98 @@ public class ExcelUtil {
 
     public <T> byte[] generateExcel(List<T> data, Class<T> clazz, String sheetName,
                                     boolean rightToLeft, Map<String, String> customHeaders) {
-        try (Workbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            generateExcel(data.iterator(), clazz, sheetName, rightToLeft, customHeaders, out);
+            return out.toByteArray();
+        } catch (Exception e) {
+            throw new RuntimeException("Error generating Excel file: " + e.getMessage(), e);
+        }
+    }
 
-            List<Field> fields = getAllFields(clazz);
-            validateFields(fields, clazz);
+    public <T> void generateExcel(Stream<T> data, Class<T> clazz, String sheetName,
+                                  boolean rightToLeft, Map<String, String> customHeaders,
+                                  OutputStream out) throws IOException {
+        generateExcel(data.iterator(), clazz, sheetName, rightToLeft, customHeaders, out);
+    }
 
+    /**
+     * Stream DTOs into an .xlsx written straight to {@code out}. Only the last
+     * {@value #STREAMING_ROW_WINDOW} rows are kept in memory; older rows are flushed
+     * to a compressed temp file, so heap use does not grow with the row count.
+     */
+    public <T> void generateExcel(Iterator<T> data, Class<T> clazz, String sheetName,
+                                  boolean rightToLeft, Map<String, String> customHeaders,
+                                  OutputStream out) throws IOException {
+        List<ExcelBeanMetadata.Column> columns = ExcelBeanMetadata.of(clazz).columns();
+        validateFields(columns, clazz);
+
+        SXSSFWorkbook workbook = new SXSSFWorkbook(STREAMING_ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
             Sheet sheet = createStyledSheet(workbook, sheetName, rightToLeft);
             ExcelStyleUtil styleUtil = new ExcelStyleUtil(workbook);
+            ColumnWidthEstimator widths = new ColumnWidthEstimator(columns.size());
 
-            createHeaderRow(sheet, fields, styleUtil, customHeaders);
-            createDataRows(sheet, data, fields, styleUtil, rightToLeft);
-            autoSizeColumns(sheet, fields.size());
+            createHeaderRow(sheet, columns, styleUtil, customHeaders, widths);
+            createDataRows(sheet, data, columns, styleUtil, rightToLeft, widths);
+            widths.applyTo(sheet);
 
             workbook.write(out);
-            return out.toByteArray();
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
 
-        } catch (Exception e) {
-            throw new RuntimeException("Error generating Excel file: " + e.getMessage(), e);
+    /**
+     * Stream DTOs to {@code out} as UTF-8 CSV, with the same columns and header names as
+     * {@link #generateExcel(Iterator, Class, String, boolean, Map, OutputStream)}, so the file
+     * can be imported again. {@code out} is flushed but not closed.
+     */
+    public <T> void generateCsv(Iterator<T> data, Class<T> clazz, Map<String, String> customHeaders,
+                                OutputStream out) throws IOException {
+        List<ExcelBeanMetadata.Column> columns = ExcelBeanMetadata.of(clazz).columns();
+        validateFields(columns, clazz);
+
+        CsvWriter csv = new CsvWriter(out);
+        for (ExcelBeanMetadata.Column column : columns) {
+            csv.writeField(getHeaderName(column.name(), customHeaders));
+        }
+        csv.endRecord();
+
+        while (data.hasNext()) {
+            T dto = data.next();
+            for (ExcelBeanMetadata.Column column : columns) {
+                csv.writeField(formatCsvValue(column.get(dto)));
+            }
+            csv.endRecord();
         }
+        csv.flush();
+    }
+
+    public <T> void generateCsv(Stream<T> data, Class<T> clazz, Map<String, String> customHeaders,
+                                OutputStream out) throws IOException {
+        generateCsv(data.iterator(), clazz, customHeaders, out);
+    }
+
+    /**
+     * @return whether {@code filename} names a CSV file, which imports read as CSV instead of a workbook
+     */
+    public static boolean isCsv(String filename) {
+        return filename != null && filename.toLowerCase().endsWith(".csv");
+    }
+
+    /**
+     * The name whose extension selects how an upload is read: the original filename, with
+     * {@code .csv} appended when the upload is declared as {@code text/csv} but not named so.
+     */
+    public static String importFilename(MultipartFile file) {
+        String filename = file.getOriginalFilename();
+        String contentType = file.getContentType();
+        if (contentType != null && contentType.startsWith("text/csv") && !isCsv(filename)) {
+            return (filename != null ? filename : "upload") + ".csv";
+        }
+        return filename;
     }
 
     // ==================== VALIDATION METHODS ====================
@@ -106,13 +268,14 @@ public class ExcelUtil {
         }
     }
 
-    private void validateFields(List<Field> fields, Class<?> clazz) {
-        if (fields.isEmpty()) {
+    private void validateFields(List<ExcelBeanMetadata.Column> columns, Class<?> clazz) {
+        if (columns.isEmpty()) {
             throw new IllegalArgumentException("No fields found in class: " + clazz.getName());
         }
     }
 
-    private <T> Map<String, Integer> validateAndMapHeaders(Sheet sheet, Class<T> clazz, int headerRowIndex)
+    private <T> List<ColumnBinding> validateAndMapHeaders(Sheet sheet, ExcelBeanMetadata<T> metadata,
+                                                          int headerRowIndex)
             throws ExcelProcessingException {
 
         Row headerRow = sheet.getRow(headerRowIndex);
@@ -120,26 +283,39 @@ public class ExcelUtil {
             throw new ExcelProcessingException("Header row not found at index " + headerRowIndex);
         }
 
-        Set<String> dtoFieldNames = getAllFieldNames(clazz);
-        Map<String, Integer> headerMap = new HashMap<>();
+        Map<Integer, String> headerCells = new LinkedHashMap<>();
+        for (Cell cell : headerRow) {
+            headerCells.put(cell.getColumnIndex(), getCellValueAsString(cell));
+        }
+        return mapHeaders(headerCells, metadata);
+    }
+
+    private <T> List<ColumnBinding> mapHeaders(Map<Integer, String> headerCells, ExcelBeanMetadata<T> metadata)
+            throws ExcelProcessingException {
+
+        Map<String, ColumnBinding> bindings = new LinkedHashMap<>();
         List<String> missingFields = new ArrayList<>();
         List<String> unmappedHeaders = new ArrayList<>();
 
         // Map headers to field names
-        for (Cell cell : headerRow) {
-            String headerValue = getCellValueAsString(cell).trim();
+        for (Map.Entry<Integer, String> headerCell : headerCells.entrySet()) {
+            String headerValue = headerCell.getValue().trim();
             if (headerValue.isEmpty()) continue;
 
-            String normalizedHeader = normalizeFieldName(headerValue);
-            boolean matched = mapHeaderToField(headerMap, dtoFieldNames, normalizedHeader, cell.getColumnIndex());
-
-            if (!matched) {
+            ExcelBeanMetadata.Column column = metadata.findByHeader(headerValue);
+            if (column != null) {
+                bindings.put(column.name(), new ColumnBinding(headerCell.getKey(), column));
+            } else {
                 unmappedHeaders.add(headerValue);
             }
         }
 
         // Check for required fields
-        checkRequiredFields(clazz, headerMap, missingFields);
+        for (ExcelBeanMetadata.Column column : metadata.columns()) {
+            if (column.required() && !bindings.containsKey(column.name())) {
+                missingFields.add(column.name());
+            }
+        }
 
         if (!missingFields.isEmpty()) {
             throw new ExcelProcessingException(
@@ -148,27 +324,7 @@ public class ExcelUtil {
         }
 
         logUnmappedHeaders(unmappedHeaders);
-        return headerMap;
-    }
-
-    private boolean mapHeaderToField(Map<String, Integer> headerMap, Set<String> dtoFieldNames,
-                                     String normalizedHeader, int columnIndex) {
-        for (String fieldName : dtoFieldNames) {
-            if (normalizeFieldName(fieldName).equalsIgnoreCase(normalizedHeader)) {
-                headerMap.put(fieldName, columnIndex);
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private <T> void checkRequiredFields(Class<T> clazz, Map<String, Integer> headerMap,
-                                         List<String> missingFields) {
-        for (Field field : getAllFields(clazz)) {
-            if (isRequiredField(field) && !headerMap.containsKey(field.getName())) {
-                missingFields.add(field.getName());
-            }
-        }
+        return List.copyOf(bindings.values());
     }
 
     private void logUnmappedHeaders(List<String> unmappedHeaders) {
@@ -180,69 +336,96 @@ public class ExcelUtil {
 
     // ==================== DATA PROCESSING ====================
 
-    private <T> List<T> processDataRows(Sheet sheet, Class<T> clazz,
-                                        Map<String, Integer> headerMap, int startRowIndex)
-            throws ExcelProcessingException {
+    /**
+     * Read the header and hand every non-empty data row to {@code sink}, with the values of the
+     * bound columns in binding order. DOM cells arrive already typed; streamed .xlsx and CSV
+     * cells arrive as text and are converted later, so that conversion can run off the reading thread.
+     */
+    private <T> void readRows(InputStream inputStream, String filename, ExcelBeanMetadata<T> metadata,
+                              int sheetIndex, int headerRowIndex, RowSink sink)
+            throws IOException, ExcelProcessingException {
 
-        List<T> result = new ArrayList<>();
-        List<ExcelError> errors = new ArrayList<>();
+        if (filename != null && filename.endsWith(".xlsx")) {
+            readStreamedRows(listener -> XlsxStreamingReader.read(inputStream, sheetIndex, listener),
+                    metadata, headerRowIndex, sink);
+            return;
+        }
+        if (isCsv(filename)) {
+            readStreamedRows(listener -> CsvReader.read(inputStream, listener), metadata, headerRowIndex, sink);
+            return;
+        }
+
+        Workbook workbook = createWorkbook(inputStream, filename);
+        Sheet sheet = getSheet(workbook, sheetIndex);
+        List<ColumnBinding> bindings = validateAndMapHeaders(sheet, metadata, headerRowIndex);
 
-        for (int i = startRowIndex; i <= sheet.getLastRowNum(); i++) {
+        for (int i = headerRowIndex + 1; i <= sheet.getLastRowNum(); i++) {
             Row row = sheet.getRow(i);
             if (row == null || isEmptyRow(row)) continue;
 
-            try {
-                T dto = mapRowToDTO(row, clazz, headerMap);
-                result.add(dto);
-            } catch (Exception e) {
-                errors.add(new ExcelError(i + 1, e.getMessage()));
+            Object[] values = new Object[bindings.size()];
+            for (int c = 0; c < values.length; c++) {
+                ColumnBinding binding = bindings.get(c);
+                Cell cell = row.getCell(binding.columnIndex);
+                values[c] = cell != null ? getCellValue(cell, binding.column.type()) : null;
             }
+            sink.accept(new RawRow(i + 1, bindings, values));
         }
-
-        if (!errors.isEmpty()) {
-            throw new ExcelProcessingException("Errors processing rows", errors);
-        }
-
-        return result;
     }
 
-    private <T> T mapRowToDTO(Row row, Class<T> clazz, Map<String, Integer> headerMap)
-            throws ReflectiveOperationException {
+    private <T> void readStreamedRows(StreamedSource source, ExcelBeanMetadata<T> metadata,
+                                      int headerRowIndex, RowSink sink)
+            throws IOException, ExcelProcessingException {
 
-        T instance = clazz.getDeclaredConstructor().newInstance();
+        List<ColumnBinding> bindings = new ArrayList<>();
+        boolean[] headerSeen = new boolean[1];
 
-        for (Map.Entry<String, Integer> entry : headerMap.entrySet()) {
-            Cell cell = row.getCell(entry.getValue());
-            if (cell != null) {
-                setFieldValue(instance, entry.getKey(), cell);
+        source.read((rowIndex, cells) -> {
+            if (rowIndex < headerRowIndex) return;
+            if (rowIndex == headerRowIndex) {
+                bindings.addAll(mapHeaders(cells, metadata));
+                headerSeen[0] = true;
+                return;
+            }
+            if (!headerSeen[0]) {
+                throw new ExcelProcessingException("Header row not found at index " + headerRowIndex);
             }
-        }
 
-        return instance;
-    }
+            Object[] values = new Object[bindings.size()];
+            for (int c = 0; c < values.length; c++) {
+                values[c] = cells.get(bindings.get(c).columnIndex);
+            }
+            sink.accept(new RawRow(rowIndex + 1, bindings, values));
+        });
 
-    private <T> void setFieldValue(T instance, String fieldName, Cell cell)
-            throws ReflectiveOperationException {
+        if (!headerSeen[0]) {
+            throw new ExcelProcessingException("Header row not found at index " + headerRowIndex);
+        }
+    }
 
-        Field field = getFieldByName(instance.getClass(), fieldName);
-        if (field == null) return;
+    private <T> T toDTO(ExcelBeanMetadata<T> metadata, RawRow row) {
+        T instance = metadata.newInstance();
 
-        field.setAccessible(true);
-        Object value = getCellValue(cell, field.getType());
+        for (int c = 0; c < row.values.length; c++) {
+            Object value = row.values[c];
+            if (value == null) continue;
 
-        try {
-            field.set(instance, value);
-        } catch (IllegalArgumentException e) {
-            // Try setter method as fallback
-            invokeSetter(instance, fieldName, value, field.getType());
+            ExcelBeanMetadata.Column column = row.bindings.get(c).column;
+            column.set(instance, value instanceof String text ? convertValue(text, column.type()) : value);
         }
+
+        return instance;
     }
 
-    private <T> void invokeSetter(T instance, String fieldName, Object value, Class<?> fieldType)
-            throws ReflectiveOperationException {
-        String setterName = "set" + capitalize(fieldName);
-        Method setter = instance.getClass().getMethod(setterName, fieldType);
-        setter.invoke(instance, value);
+    @PostConstruct
+    void initImportPool() {
+        int parallelism = importParallelism > 0 ? importParallelism : Runtime.getRuntime().availableProcessors();
+        this.importPool = new ForkJoinPool(parallelism, new ImportThreadFactory(), null, false);
+    }
+
+    @PreDestroy
+    void shutdownImportPool() {
+        importPool.shutdown();
     }
 
     // ==================== CELL VALUE EXTRACTION ====================
@@ -264,6 +447,51 @@ public class ExcelUtil {
         return getCellValueAsString(cell);
     }
 
+    /**
+     * Text counterpart of {@link #getCellValue} for values read by the streaming .xlsx reader.
+     */
+    private Object convertValue(String raw, Class<?> targetType) {
+        if (targetType == String.class) return raw;
+
+        String value = raw.trim();
+        if (targetType == Integer.class || targetType == int.class) {
+            Long number = parseWholeNumber(value);
+            return number != null ? number.intValue() : null;
+        }
+        if (targetType == Long.class || targetType == long.class) return parseWholeNumber(value);
+        if (targetType == Double.class || targetType == double.class) return parseDouble(value);
+        if (targetType == Float.class || targetType == float.class) {
+            Double number = parseDouble(value);
+            return number != null ? number.floatValue() : null;
+        }
+        if (targetType == Boolean.class || targetType == boolean.class) return parseBooleanString(value);
+        if (targetType == Date.class) return parseDate(value);
+        if (targetType == LocalDate.class) {
+            return parseLocalDate(value.length() > 10 ? value.substring(0, 10) : value);
+        }
+        if (targetType == LocalDateTime.class) {
+            if (value.length() == 10) {
+                LocalDate date = parseLocalDate(value);
+                return date != null ? date.atStartOfDay() : null;
+            }
+            return parseLocalDateTime(value);
+        }
+        if (targetType.isEnum()) return parseEnum(value, targetType);
+
+        return raw;
+    }
+
+    /**
+     * Parse an integral value, truncating a fraction the same way a numeric cell is read.
+     */
+    private Long parseWholeNumber(String value) {
+        Long number = parseLong(value);
+        if (number != null) return number;
+
+        Double decimal = parseDouble(value);
+        return decimal != null ? decimal.longValue() : null;
+    }
+
     private String getCellValueAsString(Cell cell) {
         if (cell == null) return "";
 
@@ -428,9 +656,12 @@ public class ExcelUtil {
         }
     }
 
-    @SuppressWarnings("unchecked")
     private Object getCellValueAsEnum(Cell cell, Class<?> enumType) {
-        String value = getCellValueAsString(cell);
+        return parseEnum(getCellValueAsString(cell), enumType);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object parseEnum(String value, Class<?> enumType) {
         if (value == null || value.trim().isEmpty()) return null;
 
         try {
@@ -450,16 +681,17 @@ public class ExcelUtil {
         return sheet;
     }
 
-    private void createHeaderRow(Sheet sheet, List<Field> fields, ExcelStyleUtil styleUtil,
-                                 Map<String, String> customHeaders) {
+    private void createHeaderRow(Sheet sheet, List<ExcelBeanMetadata.Column> columns, ExcelStyleUtil styleUtil,
+                                 Map<String, String> customHeaders, ColumnWidthEstimator widths) {
         Row headerRow = sheet.createRow(0);
 
-        for (int i = 0; i < fields.size(); i++) {
+        for (int i = 0; i < columns.size(); i++) {
             Cell cell = headerRow.createCell(i);
-            String fieldName = fields.get(i).getName();
-            String headerName = getHeaderName(fieldName, customHeaders);
+            String headerName = getHeaderName(columns.get(i).name(), customHeaders);
             cell.setCellValue(headerName);
             cell.setCellStyle(styleUtil.getHeaderStyle());
+            // Bold text runs roughly one character wider
+            widths.record(i, ColumnWidthEstimator.displayWidth(headerName) + 1);
         }
     }
 
@@ -470,40 +702,26 @@ public class ExcelUtil {
         return formatFieldName(fieldName);
     }
 
-    private <T> void createDataRows(Sheet sheet, List<T> data, List<Field> fields,
-                                    ExcelStyleUtil styleUtil, boolean rightToLeft) {
+    private <T> void createDataRows(Sheet sheet, Iterator<T> data, List<ExcelBeanMetadata.Column> columns,
+                                    ExcelStyleUtil styleUtil, boolean rightToLeft,
+                                    ColumnWidthEstimator widths) {
         int rowNum = 1;
 
-        for (T dto : data) {
+        while (data.hasNext()) {
+            T dto = data.next();
             Row row = sheet.createRow(rowNum++);
 
-            for (int i = 0; i < fields.size(); i++) {
+            for (int i = 0; i < columns.size(); i++) {
                 Cell cell = row.createCell(i);
-                Object value = getFieldValue(dto, fields.get(i));
+                Object value = columns.get(i).get(dto);
                 setCellValueWithAutoStyle(cell, value, styleUtil, rightToLeft);
+                if (value != null) {
+                    widths.record(i, estimateDisplayWidth(value));
+                }
             }
         }
     }
 
-    private <T> Object getFieldValue(T instance, Field field) {
-        try {
-            field.setAccessible(true);
-            return field.get(instance);
-        } catch (IllegalAccessException e) {
-            return getFieldValueViaGetter(instance, field);
-        }
-    }
-
-    private <T> Object getFieldValueViaGetter(T instance, Field field) {
-        try {
-            String getterName = "get" + capitalize(field.getName());
-            Method getter = instance.getClass().getMethod(getterName);
-            return getter.invoke(instance);
-        } catch (Exception e) {
-            return null;
-        }
-    }
-
     private void setCellValueWithAutoStyle(Cell cell, Object value, ExcelStyleUtil styleUtil,
                                            boolean rightToLeft) {
         if (value == null) {
@@ -548,10 +766,45 @@ public class ExcelUtil {
         }
     }
 
-    private void autoSizeColumns(Sheet sheet, int columnCount) {
-        for (int i = 0; i < columnCount; i++) {
-            sheet.autoSizeColumn(i);
+    /**
+     * Width of {@code value} as rendered by the style {@link #determineStyle} gives it.
+     */
+    private double estimateDisplayWidth(Object value) {
+        if (value instanceof Integer || value instanceof Long) {
+            return groupedDigits(Math.abs(((Number) value).longValue())) + (((Number) value).longValue() < 0 ? 1 : 0);
+        } else if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            // Two decimals and the point
+            return groupedDigits((long) Math.abs(number)) + 3 + (number < 0 ? 1 : 0);
+        } else if (value instanceof Date) {
+            return DATE_FORMAT.length();
+        } else if (value instanceof Boolean) {
+            return "FALSE".length();
+        }
+        return ColumnWidthEstimator.displayWidth(value.toString());
+    }
+
+    /**
+     * Text of {@code value} in the form {@link #convertValue} reads back.
+     */
+    private String formatCsvValue(Object value) {
+        if (value == null) return null;
+        if ((value instanceof Double || value instanceof Float) && Double.isFinite(((Number) value).doubleValue())) {
+            // Plain notation; Float's own text avoids widening noise such as 1.100000023841858
+            return new BigDecimal(value.toString()).toPlainString();
         }
+        if (value instanceof Date date) {
+            return new SimpleDateFormat(DATE_FORMAT).format(date);
+        }
+        if (value instanceof Enum<?> constant) {
+            return constant.name();
+        }
+        return value.toString();
+    }
+
+    private int groupedDigits(long number) {
+        int digits = number == 0 ? 1 : (int) Math.log10(number) + 1;
+        return digits + (digits - 1) / 3;
     }
 
     // ==================== UTILITY METHODS ====================
@@ -567,7 +820,7 @@ public class ExcelUtil {
             return new HSSFWorkbook(inputStream);
         } else {
             throw new IllegalArgumentException(
-                    "Invalid file format. Only .xls and .xlsx are supported. Received: " + filename);
+                    "Invalid file format. Only .xls, .xlsx and .csv are supported. Received: " + filename);
         }
     }
 
@@ -579,47 +832,6 @@ public class ExcelUtil {
         return sheet;
     }
 
-    private Set<String> getAllFieldNames(Class<?> clazz) {
-        return getAllFields(clazz).stream()
-                .map(Field::getName)
-                .collect(Collectors.toSet());
-    }
-
-    private List<Field> getAllFields(Class<?> clazz) {
-        List<Field> fields = new ArrayList<>();
-        Class<?> currentClass = clazz;
-
-        while (currentClass != null && currentClass != Object.class) {
-            fields.addAll(Arrays.asList(currentClass.getDeclaredFields()));
-            currentClass = currentClass.getSuperclass();
-        }
-
-        return fields;
-    }
-
-    private Field getFieldByName(Class<?> clazz, String fieldName) {
-        Class<?> currentClass = clazz;
-
-        while (currentClass != null && currentClass != Object.class) {
-            try {
-                return currentClass.getDeclaredField(fieldName);
-            } catch (NoSuchFieldException e) {
-                currentClass = currentClass.getSuperclass();
-            }
-        }
-
-        return null;
-    }
-
-    private boolean isRequiredField(Field field) {
-        return field.getAnnotation(Required.class) != null ||
-                field.getAnnotation(NotNull.class) != null;
-    }
-
-    private String normalizeFieldName(String name) {
-        return name.replaceAll("[^a-zA-Z0-9]", "").toLowerCase();
-    }
-
     private boolean isEmptyRow(Row row) {
         if (row == null) return true;
 
@@ -688,6 +900,59 @@ public class ExcelUtil {
         }
     }
 
+    /**
+     * Checks a converted row; any exception it throws becomes that row's {@link ExcelError}.
+     */
+    @FunctionalInterface
+    public interface RowValidator<T> {
+        void validate(T row);
+    }
+
+    @FunctionalInterface
+    private interface RowSink {
+        void accept(RawRow row) throws ExcelProcessingException;
+    }
+
+    /**
+     * A text-cell reader such as {@link XlsxStreamingReader} or {@link CsvReader}, bound to its input.
+     */
+    @FunctionalInterface
+    private interface StreamedSource {
+        void read(XlsxStreamingReader.RowListener listener) throws IOException, ExcelProcessingException;
+    }
+
+    private static final class RawRow {
+        private final int rowNumber;
+        private final List<ColumnBinding> bindings;
+        private final Object[] values;
+
+        private RawRow(int rowNumber, List<ColumnBinding> bindings, Object[] values) {
+            this.rowNumber = rowNumber;
+            this.bindings = bindings;
+            this.values = values;
+        }
+    }
+
+    private static final class ImportThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("excel-import-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    private static final class ColumnBinding {
+        private final int columnIndex;
+        private final ExcelBeanMetadata.Column column;
+
+        private ColumnBinding(int columnIndex, ExcelBeanMetadata.Column column) {
+            this.columnIndex = columnIndex;
+            this.column = column;
+        }
+    }
+
     @Retention(RetentionPolicy.RUNTIME)
     public @interface Required {}
 }
\ No newline at end of file
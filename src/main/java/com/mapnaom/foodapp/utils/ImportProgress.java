@@ -0,0 +1,27 @@
+package com.mapnaom.foodapp.utils;
+
+import java.util.Collection;
+
+/**
+ * Receives progress from a running import: every row read from the file and the outcome of
+ * each chunk of rows as it is committed, which may happen while the file is still being read.
+ * Implementations must be cheap, since {@link #rowRead()} is called once per row.
+ */
+public interface ImportProgress {
+
+    ImportProgress NONE = new ImportProgress() {
+    };
+
+    default void rowRead() {
+    }
+
+    /**
+     * The file has been read completely; {@code totalRows} rows in all are reported through
+     * {@link #rowsDone}, including those reported before this call.
+     */
+    default void readFinished(int totalRows) {
+    }
+
+    default void rowsDone(Collection<ImportRowResult> rows) {
+    }
+}
@@ -3,6 +3,7 @@ package com.mapnaom.foodapp.utils;
 import lombok.Builder;
 import lombok.Value;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Value
@@ -13,6 +14,32 @@ public class ImportResult {
     int skippedCount;
     int totalProcessed;
     List<String> errors;
+    List<ImportRowResult> rows;
+
+    /**
+     * Summarises per-row outcomes: created and updated rows count as successes, duplicate and
+     * unchanged rows as skipped, and invalid or failed rows as errors.
+     */
+    public static ImportResult fromRows(List<ImportRowResult> rows) {
+        int success = 0;
+        int skipped = 0;
+        List<String> errors = new ArrayList<>();
+        for (ImportRowResult row : rows) {
+            switch (row.getStatus()) {
+                case CREATED, UPDATED -> success++;
+                case DUPLICATE, UNCHANGED -> skipped++;
+                default -> errors.add("Row %d: %s".formatted(row.getRowNumber(), row.getMessage()));
+            }
+        }
+        return ImportResult.builder()
+                .successCount(success)
+                .skippedCount(skipped)
+                .errorCount(errors.size())
+                .totalProcessed(rows.size())
+                .errors(errors)
+                .rows(rows)
+                .build();
+    }
 
     public boolean hasErrors() {
         return errorCount > 0 || (errors != null && !errors.isEmpty());
@@ -0,0 +1,48 @@
+package com.mapnaom.foodapp.utils;
+
+import lombok.Value;
+
+/**
+ * Outcome of importing a single spreadsheet row.
+ */
+@Value
+public class ImportRowResult {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        UNCHANGED,
+        DUPLICATE,
+        INVALID,
+        FAILED
+    }
+
+    int rowNumber;
+    Status status;
+    Long id;
+    String message;
+
+    public static ImportRowResult created(int rowNumber, Long id) {
+        return new ImportRowResult(rowNumber, Status.CREATED, id, null);
+    }
+
+    public static ImportRowResult updated(int rowNumber, Long id) {
+        return new ImportRowResult(rowNumber, Status.UPDATED, id, null);
+    }
+
+    public static ImportRowResult unchanged(int rowNumber, Long id) {
+        return new ImportRowResult(rowNumber, Status.UNCHANGED, id, null);
+    }
+
+    public static ImportRowResult duplicate(int rowNumber, String message) {
+        return new ImportRowResult(rowNumber, Status.DUPLICATE, null, message);
+    }
+
+    public static ImportRowResult invalid(int rowNumber, String message) {
+        return new ImportRowResult(rowNumber, Status.INVALID, null, message);
+    }
+
+    public static ImportRowResult failed(int rowNumber, String message) {
+        return new ImportRowResult(rowNumber, Status.FAILED, null, message);
+    }
+}
@@ -0,0 +1,153 @@
+package com.mapnaom.foodapp.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Converts rows in parallel while keeping their original order.
+ * <p>
+ * Rows are collected into chunks that are converted on {@code executor}. Finished chunks are
+ * drained in submission order on the calling thread, so {@code consumer} sees the rows exactly
+ * as they appear in the sheet and may safely use the caller's transaction. At most
+ * {@code maxChunksInFlight} chunks are pending at a time, which also bounds memory.
+ * <p>
+ * With {@code stopOnError}, the first failing row ends the import: no row after it reaches the
+ * consumer, and chunks queued behind it are skipped or cancelled.
+ */
+final class ParallelRowPipeline<R, T> {
+
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
+    private final boolean stopOnError;
+    private final Function<R, T> converter;
+    private final ObjIntConsumer<T> consumer;
+
+    private final Deque<Future<List<Outcome<T>>>> inFlight = new ArrayDeque<>();
+    private final List<ExcelUtil.ExcelError> errors = new ArrayList<>();
+    private final AtomicInteger firstFailedChunk = new AtomicInteger(Integer.MAX_VALUE);
+    private List<PendingRow<R>> chunk;
+    private int chunkCount;
+
+    ParallelRowPipeline(ExecutorService executor, int chunkSize, int maxChunksInFlight, boolean stopOnError,
+                        Function<R, T> converter, ObjIntConsumer<T> consumer) {
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.maxChunksInFlight = maxChunksInFlight;
+        this.stopOnError = stopOnError;
+        this.converter = converter;
+        this.consumer = consumer;
+        this.chunk = new ArrayList<>(chunkSize);
+    }
+
+    /**
+     * @param rowNumber 1-based row number used in error reports
+     */
+    void add(int rowNumber, R row) throws ExcelUtil.ExcelProcessingException {
+        chunk.add(new PendingRow<>(rowNumber, row));
+        if (chunk.size() >= chunkSize) {
+            submitChunk();
+        }
+    }
+
+    /**
+     * Waits for the remaining chunks and reports every collected row error.
+     */
+    void finish() throws ExcelUtil.ExcelProcessingException {
+        if (!chunk.isEmpty()) {
+            submitChunk();
+        }
+        while (!inFlight.isEmpty()) {
+            drain(inFlight.poll());
+        }
+        if (!errors.isEmpty()) {
+            throw new ExcelUtil.ExcelProcessingException("Errors processing rows", errors);
+        }
+    }
+
+    private void submitChunk() throws ExcelUtil.ExcelProcessingException {
+        List<PendingRow<R>> rows = chunk;
+        int index = chunkCount++;
+        chunk = new ArrayList<>(chunkSize);
+        inFlight.add(executor.submit(() -> convert(index, rows)));
+
+        while (inFlight.size() > maxChunksInFlight) {
+            drain(inFlight.poll());
+        }
+    }
+
+    private List<Outcome<T>> convert(int index, List<PendingRow<R>> rows) {
+        List<Outcome<T>> outcomes = new ArrayList<>(rows.size());
+        for (PendingRow<R> row : rows) {
+            if (stopOnError && firstFailedChunk.get() < index) break;
+            try {
+                outcomes.add(new Outcome<>(row.rowNumber, converter.apply(row.row), null));
+            } catch (Exception e) {
+                outcomes.add(new Outcome<>(row.rowNumber, null, e.getMessage()));
+                if (stopOnError) {
+                    firstFailedChunk.accumulateAndGet(index, Math::min);
+                    break;
+                }
+            }
+        }
+        return outcomes;
+    }
+
+    private void drain(Future<List<Outcome<T>>> future) throws ExcelUtil.ExcelProcessingException {
+        for (Outcome<T> outcome : await(future)) {
+            if (outcome.error == null) {
+                consumer.accept(outcome.value, outcome.rowNumber);
+                continue;
+            }
+            errors.add(new ExcelUtil.ExcelError(outcome.rowNumber, outcome.error));
+            if (stopOnError) {
+                inFlight.forEach(pending -> pending.cancel(false));
+                inFlight.clear();
+                throw new ExcelUtil.ExcelProcessingException("Errors processing rows", errors);
+            }
+        }
+    }
+
+    private List<Outcome<T>> await(Future<List<Outcome<T>>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            inFlight.forEach(pending -> pending.cancel(true));
+            throw new CancellationException("Import interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Row conversion failed", e.getCause());
+        }
+    }
+
+    private static final class PendingRow<R> {
+        private final int rowNumber;
+        private final R row;
+
+        private PendingRow(int rowNumber, R row) {
+            this.rowNumber = rowNumber;
+            this.row = row;
+        }
+    }
+
+    private static final class Outcome<T> {
+        private final int rowNumber;
+        private final T value;
+        private final String error;
+
+        private Outcome(int rowNumber, T value, String error) {
+            this.rowNumber = rowNumber;
+            this.value = value;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.mapnaom.foodapp.utils;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Event-driven reader for .xlsx sheets. Rows are parsed with SAX and handed to a
+ * {@link RowListener} as soon as they end, so only one row is held in memory at a time.
+ * <p>
+ * Cell values arrive as text. Numbers are rendered without their display format and
+ * date-formatted cells as ISO dates, matching what {@link ExcelUtil} reads from DOM cells.
+ */
+final class XlsxStreamingReader {
+
+    @FunctionalInterface
+    interface RowListener {
+        /**
+         * @param rowIndex zero-based row index in the sheet
+         * @param cells    non-blank cell values keyed by zero-based column index
+         */
+        void onRow(int rowIndex, Map<Integer, String> cells) throws ExcelUtil.ExcelProcessingException;
+    }
+
+    private XlsxStreamingReader() {
+    }
+
+    static void read(InputStream inputStream, int sheetIndex, RowListener listener)
+            throws IOException, ExcelUtil.ExcelProcessingException {
+        // OPCPackage.open(InputStream) inflates the whole archive in memory; a file does not
+        Path tempFile = Files.createTempFile("excel-import-", ".xlsx");
+        try {
+            Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            try (OPCPackage pkg = OPCPackage.open(tempFile.toFile(), PackageAccess.READ)) {
+                readSheet(pkg, sheetIndex, listener);
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new ExcelUtil.ExcelProcessingException("Invalid .xlsx file: " + e.getMessage());
+        } catch (ListenerAbort abort) {
+            throw abort.failure;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static void readSheet(OPCPackage pkg, int sheetIndex, RowListener listener)
+            throws IOException, OpenXML4JException, SAXException, ParserConfigurationException,
+            ExcelUtil.ExcelProcessingException {
+        XSSFReader reader = new XSSFReader(pkg);
+        StylesTable styles = reader.getStylesTable();
+        ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+
+        Iterator<InputStream> sheets = reader.getSheetsData();
+        for (int i = 0; sheets.hasNext(); i++) {
+            try (InputStream sheet = sheets.next()) {
+                if (i != sheetIndex) continue;
+
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(
+                        styles, null, strings, new RowCollector(listener), new ImportDataFormatter(), false));
+                parser.parse(new InputSource(sheet));
+                return;
+            }
+        }
+        throw new ExcelUtil.ExcelProcessingException("Sheet at index " + sheetIndex + " not found");
+    }
+
+    private static final class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final RowListener listener;
+        private Map<Integer, String> cells;
+        private int lastColumn;
+
+        RowCollector(RowListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells = new HashMap<>();
+            lastColumn = -1;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (cells.isEmpty()) return;
+            try {
+                listener.onRow(rowNum, cells);
+            } catch (ExcelUtil.ExcelProcessingException e) {
+                throw new ListenerAbort(e);
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            // Some writers omit the "r" attribute; cells are then consecutive
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : lastColumn + 1;
+            lastColumn = column;
+            if (formattedValue != null && !formattedValue.isBlank()) {
+                cells.put(column, formattedValue);
+            }
+        }
+    }
+
+    /**
+     * Renders raw numeric cells the way the DOM import reads them: whole numbers without a
+     * fraction, other numbers in plain decimal notation and dates as ISO-8601.
+     */
+    private static final class ImportDataFormatter extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString) {
+            return formatRawCellContents(value, formatIndex, formatString, false);
+        }
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString,
+                                            boolean use1904Windowing) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                LocalDateTime dateTime = DateUtil.getLocalDateTime(value, use1904Windowing);
+                return dateTime.toLocalTime().equals(LocalTime.MIDNIGHT)
+                        ? dateTime.toLocalDate().toString()
+                        : dateTime.toString();
+            }
+            return value == (long) value
+                    ? String.valueOf((long) value)
+                    : String.valueOf(value);
+        }
+    }
+
+    /**
+     * Carries a listener failure out of the SAX callbacks, which cannot throw checked exceptions.
+     */
+    private static final class ListenerAbort extends RuntimeException {
+        private final ExcelUtil.ExcelProcessingException failure;
+
+        ListenerAbort(ExcelUtil.ExcelProcessingException failure) {
+            super(failure.getMessage(), failure, false, false);
+            this.failure = failure;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+-- Runs after Hibernate's schema update (spring.jpa.defer-datasource-initialization=true); keep every statement idempotent.
+
+-- Refresh tokens are stored as SHA-256 digests only: drop the legacy plaintext column and any rows without a digest.
+ALTER TABLE IF EXISTS refresh_token DROP COLUMN IF EXISTS token;
+DELETE FROM refresh_token WHERE token_hash IS NULL OR family_id IS NULL;
+-- Lets the cleanup find revoked tokens without a scan; expiry_date is indexed through the entity mapping.
+CREATE INDEX IF NOT EXISTS idx_refresh_token_revoked ON refresh_token (id) WHERE revoked;
+
+-- Primary keys come from pooled sequences (allocationSize = 50) so Hibernate can batch inserts.
+-- Tables created with identity columns are moved onto their sequence, which is advanced past the current
+-- maximum id; native inserts that rely on the column default draw from the same sequence.
+CREATE SEQUENCE IF NOT EXISTS dish_seq START WITH 1 INCREMENT BY 50;
+ALTER TABLE IF EXISTS dish ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE IF EXISTS dish ALTER COLUMN id SET DEFAULT nextval('dish_seq');
+SELECT setval('dish_seq', m) FROM (SELECT MAX(id) AS m FROM dish) ids WHERE m >= (SELECT last_value FROM dish_seq);
+CREATE SEQUENCE IF NOT EXISTS personnel_seq START WITH 1 INCREMENT BY 50;
+ALTER TABLE IF EXISTS personnel ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE IF EXISTS personnel ALTER COLUMN id SET DEFAULT nextval('personnel_seq');
+SELECT setval('personnel_seq', m) FROM (SELECT MAX(id) AS m FROM personnel) ids WHERE m >= (SELECT last_value FROM personnel_seq);
+CREATE SEQUENCE IF NOT EXISTS daily_meal_seq START WITH 1 INCREMENT BY 50;
+ALTER TABLE IF EXISTS daily_meal ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE IF EXISTS daily_meal ALTER COLUMN id SET DEFAULT nextval('daily_meal_seq');
+SELECT setval('daily_meal_seq', m) FROM (SELECT MAX(id) AS m FROM daily_meal) ids WHERE m >= (SELECT last_value FROM daily_meal_seq);
+CREATE SEQUENCE IF NOT EXISTS daily_meal_dish_seq START WITH 1 INCREMENT BY 50;
+ALTER TABLE IF EXISTS daily_meal_dish ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE IF EXISTS daily_meal_dish ALTER COLUMN id SET DEFAULT nextval('daily_meal_dish_seq');
+SELECT setval('daily_meal_dish_seq', m) FROM (SELECT MAX(id) AS m FROM daily_meal_dish) ids WHERE m >= (SELECT last_value FROM daily_meal_dish_seq);
+CREATE SEQUENCE IF NOT EXISTS reservation_seq START WITH 1 INCREMENT BY 50;
+ALTER TABLE IF EXISTS reservation ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE IF EXISTS reservation ALTER COLUMN id SET DEFAULT nextval('reservation_seq');
+SELECT setval('reservation_seq', m) FROM (SELECT MAX(id) AS m FROM reservation) ids WHERE m >= (SELECT last_value FROM reservation_seq);
+CREATE SEQUENCE IF NOT EXISTS cost_shares_seq START WITH 1 INCREMENT BY 50;
+ALTER TABLE IF EXISTS cost_shares ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE IF EXISTS cost_shares ALTER COLUMN id SET DEFAULT nextval('cost_shares_seq');
+SELECT setval('cost_shares_seq', m) FROM (SELECT MAX(id) AS m FROM cost_shares) ids WHERE m >= (SELECT last_value FROM cost_shares_seq);
+CREATE SEQUENCE IF NOT EXISTS cost_center_seq START WITH 1 INCREMENT BY 50;
+ALTER TABLE IF EXISTS cost_center ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE IF EXISTS cost_center ALTER COLUMN id SET DEFAULT nextval('cost_center_seq');
+SELECT setval('cost_center_seq', m) FROM (SELECT MAX(id) AS m FROM cost_center) ids WHERE m >= (SELECT last_value FROM cost_center_seq);
+CREATE SEQUENCE IF NOT EXISTS guest_seq START WITH 1 INCREMENT BY 50;
+ALTER TABLE IF EXISTS guest ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE IF EXISTS guest ALTER COLUMN id SET DEFAULT nextval('guest_seq');
+SELECT setval('guest_seq', m) FROM (SELECT MAX(id) AS m FROM guest) ids WHERE m >= (SELECT last_value FROM guest_seq);
+
+-- One reservation per employee per daily meal, and one cost share per reservation. Duplicates left by the old
+-- read-then-insert path are removed first, keeping a delivered reservation over an active one and otherwise the newest.
+-- The cleanup only runs while the index is missing; afterwards the guard is a one-time filter and nothing is scanned.
+DELETE FROM cost_shares WHERE reservation_id IN (SELECT id FROM (SELECT id, row_number() OVER (PARTITION BY personnel_id, daily_meal_id ORDER BY (reservation_status = 'DELIVERED') DESC, (reservation_status = 'ACTIVE') DESC, id DESC) AS rn FROM reservation WHERE to_regclass('uk_reservation_personnel_daily_meal') IS NULL) ranked WHERE rn > 1);
+DELETE FROM reservation WHERE id IN (SELECT id FROM (SELECT id, row_number() OVER (PARTITION BY personnel_id, daily_meal_id ORDER BY (reservation_status = 'DELIVERED') DESC, (reservation_status = 'ACTIVE') DESC, id DESC) AS rn FROM reservation WHERE to_regclass('uk_reservation_personnel_daily_meal') IS NULL) ranked WHERE rn > 1);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_reservation_personnel_daily_meal ON reservation (personnel_id, daily_meal_id);
+DELETE FROM cost_shares WHERE id IN (SELECT id FROM (SELECT id, row_number() OVER (PARTITION BY reservation_id ORDER BY id DESC) AS rn FROM cost_shares WHERE to_regclass('uk_cost_shares_reservation') IS NULL) ranked WHERE rn > 1);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_cost_shares_reservation ON cost_shares (reservation_id);
@@ -0,0 +1,64 @@
+package com.mapnaom.foodapp.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Test
+    void aFullBucketAllowsCapacityThenRefuses() {
+        TokenBucket bucket = new TokenBucket(3, Duration.ofSeconds(1), nanos::get);
+
+        assertTrue(bucket.tryConsume());
+        assertTrue(bucket.tryConsume());
+        assertTrue(bucket.tryConsume());
+        assertFalse(bucket.tryConsume());
+        assertFalse(bucket.hasToken());
+    }
+
+    @Test
+    void tokensComeBackOnePerRefillPeriod() {
+        TokenBucket bucket = new TokenBucket(2, Duration.ofSeconds(1), nanos::get);
+        bucket.tryConsume();
+        bucket.tryConsume();
+
+        advance(Duration.ofMillis(999));
+        assertFalse(bucket.tryConsume());
+
+        advance(Duration.ofMillis(1));
+        assertTrue(bucket.tryConsume());
+        assertFalse(bucket.tryConsume());
+    }
+
+    @Test
+    void refillNeverExceedsCapacity() {
+        TokenBucket bucket = new TokenBucket(2, Duration.ofSeconds(1), nanos::get);
+
+        advance(Duration.ofHours(1));
+
+        assertTrue(bucket.tryConsume());
+        assertTrue(bucket.tryConsume());
+        assertFalse(bucket.tryConsume());
+    }
+
+    @Test
+    void hasTokenDoesNotConsume() {
+        TokenBucket bucket = new TokenBucket(1, Duration.ofSeconds(1), nanos::get);
+
+        assertTrue(bucket.hasToken());
+        assertTrue(bucket.hasToken());
+        assertTrue(bucket.tryConsume());
+        assertFalse(bucket.hasToken());
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+}
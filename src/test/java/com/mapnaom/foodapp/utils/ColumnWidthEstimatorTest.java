@@ -0,0 +1,55 @@
+package com.mapnaom.foodapp.utils;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ColumnWidthEstimatorTest {
+
+    @Test
+    void latinCharactersCountOneEach() {
+        assertEquals(5, ColumnWidthEstimator.displayWidth("Hello"), 1e-9);
+    }
+
+    @Test
+    void arabicScriptCountsWiderThanLatin() {
+        assertEquals(4 * 1.2, ColumnWidthEstimator.displayWidth("سلام"), 1e-9);
+    }
+
+    @Test
+    void joinersAndDiacriticsCountAsNothing() {
+        // "می‌روم" with a zero-width non-joiner, and a fatha over the first letter of "بَد"
+        assertEquals(5 * 1.2, ColumnWidthEstimator.displayWidth("می\u200Cروم"), 1e-9);
+        assertEquals(2 * 1.2, ColumnWidthEstimator.displayWidth("ب\u064Eد"), 1e-9);
+    }
+
+    @Test
+    void eastAsianWideCharactersCountDouble() {
+        assertEquals(4, ColumnWidthEstimator.displayWidth("漢字"), 1e-9);
+    }
+
+    @Test
+    void supplementaryCharactersCountOncePerCodePoint() {
+        assertEquals(1, ColumnWidthEstimator.displayWidth("😀"), 1e-9);
+    }
+
+    @Test
+    void eachColumnTakesItsWidestValuePlusPadding() throws IOException {
+        ColumnWidthEstimator estimator = new ColumnWidthEstimator(2);
+        estimator.record(0, "abc");
+        estimator.record(0, "a");
+        estimator.record(1, "x".repeat(300));
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet();
+            estimator.applyTo(sheet);
+
+            assertEquals((3 + 2) * 256, sheet.getColumnWidth(0));
+            assertEquals(255 * 256, sheet.getColumnWidth(1));
+        }
+    }
+}
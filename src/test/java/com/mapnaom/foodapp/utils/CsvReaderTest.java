@@ -0,0 +1,72 @@
+package com.mapnaom.foodapp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvReaderTest {
+
+    @Test
+    void plainFieldsAreSplitOnCommas() throws Exception {
+        List<Map<Integer, String>> rows = read("id,name\n1,قورمه سبزی\n");
+
+        assertEquals(List.of(Map.of(0, "id", 1, "name"), Map.of(0, "1", 1, "قورمه سبزی")), rows);
+    }
+
+    @Test
+    void leadingByteOrderMarkIsSkipped() throws Exception {
+        List<Map<Integer, String>> rows = read("\uFEFFid,name\r\n");
+
+        assertEquals(List.of(Map.of(0, "id", 1, "name")), rows);
+    }
+
+    @Test
+    void quotedFieldsKeepCommasQuotesAndLineBreaks() throws Exception {
+        List<Map<Integer, String>> rows = read("\"a,b\",\"say \"\"hi\"\"\",\"line one\r\nline two\"\r\nnext,row\r\n");
+
+        assertEquals(List.of(
+                Map.of(0, "a,b", 1, "say \"hi\"", 2, "line one\r\nline two"),
+                Map.of(0, "next", 1, "row")), rows);
+    }
+
+    @Test
+    void blankFieldsAndBlankRecordsAreLeftOut() throws Exception {
+        List<Integer> indexes = new ArrayList<>();
+        List<Map<Integer, String>> rows = new ArrayList<>();
+        CsvReader.read(stream("a,,c\n\n , \nd\n"), (rowIndex, cells) -> {
+            indexes.add(rowIndex);
+            rows.add(new HashMap<>(cells));
+        });
+
+        assertEquals(List.of(Map.of(0, "a", 2, "c"), Map.of(0, "d")), rows);
+        assertEquals(List.of(0, 3), indexes);
+    }
+
+    @Test
+    void lastRecordWithoutLineBreakIsRead() throws Exception {
+        assertEquals(List.of(Map.of(0, "a"), Map.of(0, "b", 1, "c")), read("a\nb,c"));
+    }
+
+    @Test
+    void unterminatedQuotedFieldIsAnError() {
+        assertThrows(ExcelUtil.ExcelProcessingException.class, () -> read("a,\"never closed\n"));
+    }
+
+    private static List<Map<Integer, String>> read(String csv) throws Exception {
+        List<Map<Integer, String>> rows = new ArrayList<>();
+        CsvReader.read(stream(csv), (rowIndex, cells) -> rows.add(new HashMap<>(cells)));
+        return rows;
+    }
+
+    private static ByteArrayInputStream stream(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+}
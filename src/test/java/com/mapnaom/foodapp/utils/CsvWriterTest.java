@@ -0,0 +1,74 @@
+package com.mapnaom.foodapp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvWriterTest {
+
+    @Test
+    void outputStartsWithByteOrderMarkAndUsesCrLf() throws IOException {
+        assertEquals("\uFEFFid,name\r\n1,کباب\r\n", write(List.of("id", "name"), List.of("1", "کباب")));
+    }
+
+    @Test
+    void fieldsAreQuotedOnlyWhenNeeded() throws IOException {
+        String csv = write(List.of("plain", "a,b", "say \"hi\"", "two\nlines", "cr\rhere"));
+
+        assertEquals("\uFEFFplain,\"a,b\",\"say \"\"hi\"\"\",\"two\nlines\",\"cr\rhere\"\r\n", csv);
+    }
+
+    @Test
+    void nullAndEmptyFieldsAreWrittenEmpty() throws IOException {
+        List<String> record = new ArrayList<>();
+        record.add(null);
+        record.add("");
+        record.add("x");
+
+        assertEquals("\uFEFF,,x\r\n", write(record));
+    }
+
+    @Test
+    void writtenRecordsReadBackUnchanged() throws Exception {
+        List<String> record = List.of("a,b", "\"quoted\"", "line\r\nbreak", "فارسی");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvWriter writer = new CsvWriter(out);
+        record.forEach(field -> writeField(writer, field));
+        writer.endRecord();
+        writer.flush();
+
+        List<Map<Integer, String>> rows = new ArrayList<>();
+        CsvReader.read(new ByteArrayInputStream(out.toByteArray()), (rowIndex, cells) -> rows.add(new HashMap<>(cells)));
+
+        assertEquals(List.of(Map.of(0, "a,b", 1, "\"quoted\"", 2, "line\r\nbreak", 3, "فارسی")), rows);
+    }
+
+    @SafeVarargs
+    private static String write(List<String>... records) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvWriter writer = new CsvWriter(out);
+        for (List<String> record : records) {
+            record.forEach(field -> writeField(writer, field));
+            writer.endRecord();
+        }
+        writer.flush();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void writeField(CsvWriter writer, String value) {
+        try {
+            writer.writeField(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
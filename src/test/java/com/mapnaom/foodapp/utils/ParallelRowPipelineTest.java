@@ -0,0 +1,114 @@
+package com.mapnaom.foodapp.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParallelRowPipelineTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final List<Integer> consumedRows = new ArrayList<>();
+    private final List<String> consumedValues = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void rowsReachTheConsumerInSheetOrder() throws Exception {
+        // Later chunks finish first, so any reordering by completion time would show
+        ParallelRowPipeline<Integer, String> pipeline = pipeline(3, 4, false, row -> {
+            sleep(25 - row);
+            return "row " + row;
+        });
+
+        feed(pipeline, 24);
+        pipeline.finish();
+
+        assertEquals(rows(1, 24), consumedRows);
+        assertEquals(IntStream.rangeClosed(1, 24).mapToObj(row -> "row " + row).toList(), consumedValues);
+    }
+
+    @Test
+    void rowErrorsAreCollectedInSheetOrderAndTheOtherRowsStillArrive() throws Exception {
+        ParallelRowPipeline<Integer, String> pipeline = pipeline(2, 2, false, row -> {
+            if (row == 3 || row == 8) {
+                throw new IllegalArgumentException("bad row " + row);
+            }
+            return "row " + row;
+        });
+
+        feed(pipeline, 10);
+        ExcelUtil.ExcelProcessingException e = assertThrows(ExcelUtil.ExcelProcessingException.class, pipeline::finish);
+
+        assertEquals(List.of(3, 8), e.getErrors().stream().map(ExcelUtil.ExcelError::getRowNumber).toList());
+        assertEquals("bad row 3", e.getErrors().get(0).getMessage());
+        assertEquals(List.of(1, 2, 4, 5, 6, 7, 9, 10), consumedRows);
+    }
+
+    @Test
+    void stopOnErrorEndsTheImportAtTheFirstFailingRow() {
+        ParallelRowPipeline<Integer, String> pipeline = pipeline(2, 3, true, row -> {
+            if (row == 5 || row == 11) {
+                throw new IllegalArgumentException("bad row " + row);
+            }
+            return "row " + row;
+        });
+
+        ExcelUtil.ExcelProcessingException e = assertThrows(ExcelUtil.ExcelProcessingException.class, () -> {
+            feed(pipeline, 40);
+            pipeline.finish();
+        });
+
+        assertEquals(List.of(5), e.getErrors().stream().map(ExcelUtil.ExcelError::getRowNumber).toList());
+        assertEquals(rows(1, 4), consumedRows);
+    }
+
+    @Test
+    void aFinalPartialChunkIsConverted() throws Exception {
+        ParallelRowPipeline<Integer, String> pipeline = pipeline(4, 2, false, String::valueOf);
+
+        feed(pipeline, 6);
+        pipeline.finish();
+
+        assertEquals(rows(1, 6), consumedRows);
+    }
+
+    private ParallelRowPipeline<Integer, String> pipeline(int chunkSize, int maxChunksInFlight, boolean stopOnError,
+                                                          Function<Integer, String> converter) {
+        return new ParallelRowPipeline<>(executor, chunkSize, maxChunksInFlight, stopOnError, converter,
+                (value, rowNumber) -> {
+                    consumedRows.add(rowNumber);
+                    consumedValues.add(value);
+                });
+    }
+
+    private static void feed(ParallelRowPipeline<Integer, String> pipeline, int rowCount)
+            throws ExcelUtil.ExcelProcessingException {
+        for (int row = 1; row <= rowCount; row++) {
+            pipeline.add(row, row);
+        }
+    }
+
+    private static List<Integer> rows(int first, int last) {
+        return IntStream.rangeClosed(first, last).boxed().toList();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(Math.max(0, millis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}